@@ -0,0 +1,72 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompiledProgram;
+import edu.montana.csci.csci468.eval.ExecutionContext;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Tree-walking execution against bytecode generation, class loading and compiled execution
+// for the same verified and optimized programs.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackEndBenchmark {
+
+    @Param({"small", "medium", "huge", "generated"})
+    public String size;
+
+    private CatScriptProgram program;
+    private CompiledProgram compiled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        program = new CatScriptParser().parse(BenchmarkCorpus.source(size));
+        program.verify();
+        program.optimize();
+        compiled = new ByteCodeGenerator(program).compileProgram();
+        // a fast wrong answer must not become a baseline
+        String interpreted = interpret();
+        String expected = BenchmarkCorpus.expectedOutput(size);
+        checkOutput("interpreter", expected == null ? interpreted : expected, interpreted);
+        checkOutput("compiled program", interpreted, executeCompiled());
+    }
+
+    private void checkOutput(String backend, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("the " + backend + " printed the wrong output for the " + size + " corpus");
+        }
+    }
+
+    @Benchmark
+    public String interpret() {
+        ExecutionContext context = new ExecutionContext();
+        program.setContext(context);
+        program.execute();
+        return context.getOutput();
+    }
+
+    @Benchmark
+    public byte[] generateClass() {
+        return new ByteCodeGenerator(program).generateClass();
+    }
+
+    // generation plus defining and instantiating the class
+    @Benchmark
+    public CatScriptProgram compileToBytecode() {
+        return new ByteCodeGenerator(program).compileToBytecode();
+    }
+
+    @Benchmark
+    public String executeCompiled() {
+        ExecutionContext context = new ExecutionContext();
+        compiled.execute(context);
+        return context.getOutput();
+    }
+}
@@ -0,0 +1,67 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.util.ProgramGenerator;
+
+// Deterministic CatScript sources for the benchmarks.  Every size is built from the same
+// block (a recursive function, a global, a loop with a branch and a call) so results scale
+// with program size rather than with what the program happens to do.  "huge" stays under
+// the point where the compiled top level outgrows the JVM's 64KB method limit.
+final class BenchmarkCorpus {
+
+    private BenchmarkCorpus() {
+    }
+
+    static String source(String size) {
+        switch (size) {
+            case "small": return program(1);
+            case "medium": return program(20);
+            case "huge": return program(250);
+            // mixed statements and types rather than one repeated shape
+            case "generated": return new ProgramGenerator(468).setStatements(100).setFunctions(10).generate();
+            default: throw new IllegalArgumentException("unknown corpus size: " + size);
+        }
+    }
+
+    // what the interpreter and the compiled class have to print for the size, null for the
+    // generated corpus, which has no independent expectation
+    static String expectedOutput(String size) {
+        switch (size) {
+            case "small": return expectedOutput(1);
+            case "medium": return expectedOutput(20);
+            case "huge": return expectedOutput(250);
+            case "generated": return null;
+            default: throw new IllegalArgumentException("unknown corpus size: " + size);
+        }
+    }
+
+    static String expectedOutput(int blocks) {
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < blocks; i++) {
+            for (int x = 1; x <= 8; x++) {
+                output.append(x > 4 ? String.valueOf(x * (i + 1) + i) : "low").append('\n');
+            }
+            output.append(55).append('\n');
+        }
+        return output.toString();
+    }
+
+    static String program(int blocks) {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < blocks; i++) {
+            source.append("function fib").append(i).append("(n : int) : int {\n")
+                    .append("  if (n < 2) { return n }\n")
+                    .append("  return fib").append(i).append("(n - 1) + fib").append(i).append("(n - 2)\n")
+                    .append("}\n")
+                    .append("var total").append(i).append(" : int = ").append(i).append("\n")
+                    .append("for (x in [1, 2, 3, 4, 5, 6, 7, 8]) {\n")
+                    .append("  if (x > 4) {\n")
+                    .append("    print(x * ").append(i + 1).append(" + total").append(i).append(")\n")
+                    .append("  } else {\n")
+                    .append("    print(\"low\")\n")
+                    .append("  }\n")
+                    .append("}\n")
+                    .append("print(fib").append(i).append("(10))\n");
+        }
+        return source.toString();
+    }
+}
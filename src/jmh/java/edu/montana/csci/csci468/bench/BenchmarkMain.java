@@ -0,0 +1,19 @@
+package edu.montana.csci.csci468.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Entry point for target/benchmarks.jar.  Runs the JMH command line with the GC profiler
+// on, so allocation rates are reported alongside times unless another -prof is given.
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-prof")) {
+            arguments.add("-prof");
+            arguments.add("gc");
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+    }
+}
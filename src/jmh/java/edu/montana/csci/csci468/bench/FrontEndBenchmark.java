@@ -0,0 +1,55 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import edu.montana.csci.csci468.tokenizer.TokenList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Tokenizer, parser and verifier throughput over the benchmark corpus.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrontEndBenchmark {
+
+    @Param({"small", "medium", "huge", "generated"})
+    public String size;
+
+    private String source;
+    private TokenList tokens;
+    private CatScriptProgram unverified;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = BenchmarkCorpus.source(size);
+        tokens = new CatScriptTokenizer(source).getTokens();
+    }
+
+    // verify records its results on the tree, so every call gets a freshly parsed one
+    @Setup(Level.Invocation)
+    public void parseForVerify() {
+        unverified = new CatScriptParser().parse(source);
+    }
+
+    @Benchmark
+    public TokenList tokenize() {
+        return new CatScriptTokenizer(source).getTokens();
+    }
+
+    @Benchmark
+    public CatScriptProgram parse() {
+        tokens.reset();
+        return new CatScriptParser().parse(tokens);
+    }
+
+    @Benchmark
+    public CatScriptProgram verify() {
+        unverified.verify();
+        return unverified;
+    }
+}
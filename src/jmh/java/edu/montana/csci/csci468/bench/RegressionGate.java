@@ -0,0 +1,237 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.util.Json;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Runs a fixed set of benchmarks and compares them to a stored baseline, for the
+// perf-regression profile:
+//
+//   mvn -P benchmarks,perf-regression verify                      compare, fail on regressions
+//   mvn -P benchmarks,perf-regression verify -Dperf.mode=record   store a new baseline
+//
+// A benchmark has regressed when its throughput dropped by more than the tolerance and the
+// two 99.9% confidence intervals don't overlap, so noise on a busy machine doesn't fail the
+// build.  Allocation per operation barely varies between runs and is compared against its
+// own, tighter tolerance.  Baselines only mean something on the machine that recorded them.
+//
+// An interval wider than the drop it is supposed to catch makes that check pass no matter
+// what, so throughput whose error is more than maxRelativeError of its score is refused:
+// such a run is not recorded, and a comparison involving one fails instead of passing.
+// On a single core the JIT keeps competing with the benchmark for the first several
+// seconds, hence the long warmup; on a shared host throughput also shifts between
+// iterations, hence several forks of many iterations each.
+public class RegressionGate {
+
+    static final String[] BENCHMARKS = {
+            "FrontEndBenchmark.tokenize", "FrontEndBenchmark.parse", "FrontEndBenchmark.verify",
+            "BackEndBenchmark.interpret", "BackEndBenchmark.generateClass", "BackEndBenchmark.executeCompiled"
+    };
+    static final String SIZE = "medium";
+    // below this, allocation differences are JIT noise rather than a change in the code
+    static final double MIN_ALLOCATION_CHANGE_BYTES = 64;
+
+    public static void main(String[] args) throws Exception {
+        boolean record = false;
+        Path baselineFile = Paths.get("src/jmh/perf-baseline.json");
+        Path reportFile = Paths.get("target/perf-report.json");
+        double tolerance = 0.10;
+        double allocationTolerance = 0.05;
+        double maxRelativeError = 0.10;
+        int forks = 3;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "record": record = true; break;
+                case "compare": record = false; break;
+                case "--baseline": baselineFile = Paths.get(args[++i]); break;
+                case "--report": reportFile = Paths.get(args[++i]); break;
+                case "--tolerance": tolerance = Double.parseDouble(args[++i]); break;
+                case "--allocation-tolerance": allocationTolerance = Double.parseDouble(args[++i]); break;
+                case "--max-relative-error": maxRelativeError = Double.parseDouble(args[++i]); break;
+                case "--forks": forks = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("unknown argument '" + args[i] + "'");
+                    System.exit(2);
+            }
+        }
+        if (!record && !Files.exists(baselineFile)) {
+            System.err.println("no baseline at " + baselineFile + ", record one with -Dperf.mode=record");
+            System.exit(2);
+        }
+
+        Map<String, Sample> current = measure(forks);
+        write(reportFile, current);
+        if (record) {
+            List<String> noisy = tooNoisy(current, maxRelativeError);
+            if (!noisy.isEmpty()) {
+                System.out.println("not recording " + baselineFile + ", " + noisy.size() + " benchmark(s) too noisy:");
+                noisy.forEach(sample -> System.out.println("  " + sample));
+                System.exit(1);
+            }
+            write(baselineFile, current);
+            System.out.println("recorded " + current.size() + " benchmarks to " + baselineFile);
+            return;
+        }
+        Map<String, Sample> baseline = read(baselineFile);
+        List<String> regressions = compare(baseline, current, tolerance, allocationTolerance, maxRelativeError);
+        if (!regressions.isEmpty()) {
+            System.out.println(regressions.size() + " performance regression(s) or unusable measurement(s) against " + baselineFile + ":");
+            regressions.forEach(regression -> System.out.println("  " + regression));
+            System.exit(1);
+        }
+        System.out.println("no performance regressions against " + baselineFile);
+    }
+
+    private static Map<String, Sample> measure(int forks) throws Exception {
+        StringBuilder include = new StringBuilder();
+        for (String benchmark : BENCHMARKS) {
+            include.append(include.length() == 0 ? "" : "|").append(benchmark.replace(".", "\\."));
+        }
+        Options options = new OptionsBuilder()
+                .include(RegressionGate.class.getPackage().getName().replace(".", "\\.") + "\\.(" + include + ")$")
+                .param("size", SIZE)
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+                .warmupIterations(10)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(20)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(forks)
+                .addProfiler(GCProfiler.class)
+                // a benchmark whose setup found wrong output must fail the run, not drop out of it
+                .shouldFailOnError(true)
+                .build();
+        Map<String, Sample> samples = new TreeMap<>();
+        for (RunResult result : new Runner(options).run()) {
+            String benchmark = result.getParams().getBenchmark();
+            String name = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1)
+                    + "[" + result.getParams().getParam("size") + "]";
+            Result primary = result.getPrimaryResult();
+            Result allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            samples.put(name, new Sample(primary.getScore(), finite(primary.getScoreError()),
+                    allocation == null ? 0 : allocation.getScore()));
+        }
+        return samples;
+    }
+
+    static List<String> compare(Map<String, Sample> baseline, Map<String, Sample> current,
+                                double tolerance, double allocationTolerance, double maxRelativeError) {
+        List<String> regressions = new ArrayList<>();
+        for (String name : baseline.keySet()) {
+            if (!current.containsKey(name)) {
+                regressions.add(name + " is in the baseline but produced no result");
+            }
+        }
+        System.out.println(String.format("%-40s %14s %14s %8s %14s %14s %8s",
+                "benchmark", "baseline op/s", "current op/s", "change", "baseline B/op", "current B/op", "change"));
+        for (Map.Entry<String, Sample> entry : current.entrySet()) {
+            String name = entry.getKey();
+            Sample now = entry.getValue();
+            Sample before = baseline.get(name);
+            if (before == null) {
+                System.out.println(String.format("%-40s %14s %14.1f", name, "none", now.score));
+                continue;
+            }
+            double throughputChange = now.score / before.score - 1;
+            double allocationChange = before.allocatedBytes == 0 ? 0 : now.allocatedBytes / before.allocatedBytes - 1;
+            System.out.println(String.format("%-40s %14.1f %14.1f %+7.1f%% %14.0f %14.0f %+7.1f%%", name,
+                    before.score, now.score, throughputChange * 100,
+                    before.allocatedBytes, now.allocatedBytes, allocationChange * 100));
+            boolean outsideNoise = now.score + now.error < before.score - before.error;
+            if (before.relativeError() > maxRelativeError || now.relativeError() > maxRelativeError) {
+                regressions.add(String.format("%s throughput can't be compared, error is %.0f%% in the baseline and %.0f%% now (limit %.0f%%)",
+                        name, before.relativeError() * 100, now.relativeError() * 100, maxRelativeError * 100));
+            } else if (-throughputChange > tolerance && outsideNoise) {
+                regressions.add(String.format("%s throughput %.1f -> %.1f op/s (%.1f%%, tolerance %.0f%%)",
+                        name, before.score, now.score, throughputChange * 100, tolerance * 100));
+            }
+            if (allocationChange > allocationTolerance &&
+                    now.allocatedBytes - before.allocatedBytes > MIN_ALLOCATION_CHANGE_BYTES) {
+                regressions.add(String.format("%s allocation %.0f -> %.0f B/op (+%.1f%%, tolerance %.0f%%)",
+                        name, before.allocatedBytes, now.allocatedBytes, allocationChange * 100, allocationTolerance * 100));
+            }
+        }
+        return regressions;
+    }
+
+    static List<String> tooNoisy(Map<String, Sample> samples, double maxRelativeError) {
+        List<String> noisy = new ArrayList<>();
+        for (Map.Entry<String, Sample> entry : samples.entrySet()) {
+            Sample sample = entry.getValue();
+            if (sample.relativeError() > maxRelativeError) {
+                noisy.add(String.format("%s %.1f +/- %.1f op/s (%.0f%%, limit %.0f%%)", entry.getKey(),
+                        sample.score, sample.error, sample.relativeError() * 100, maxRelativeError * 100));
+            }
+        }
+        return noisy;
+    }
+
+    static Map<String, Sample> read(Path file) throws Exception {
+        Map<String, Object> benchmarks = Json.parseObject(Files.readString(file, StandardCharsets.UTF_8));
+        Map<String, Sample> samples = new TreeMap<>();
+        for (Map.Entry<String, Object> entry : benchmarks.entrySet()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> sample = (Map<String, Object>) entry.getValue();
+            samples.put(entry.getKey(), new Sample(number(sample.get("score")), number(sample.get("error")),
+                    number(sample.get("allocatedBytes"))));
+        }
+        return samples;
+    }
+
+    static void write(Path file, Map<String, Sample> samples) throws Exception {
+        StringBuilder json = new StringBuilder("{\n");
+        for (Map.Entry<String, Sample> entry : samples.entrySet()) {
+            Sample sample = entry.getValue();
+            json.append(json.length() == 2 ? "" : ",\n").append("  ").append(Json.quote(entry.getKey()))
+                    .append(": {\"score\": ").append(sample.score).append(", \"error\": ").append(sample.error)
+                    .append(", \"allocatedBytes\": ").append(sample.allocatedBytes).append("}");
+        }
+        json.append("\n}\n");
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Files.writeString(file, json, StandardCharsets.UTF_8);
+    }
+
+    private static double number(Object value) {
+        return value == null ? 0 : ((Number) value).doubleValue();
+    }
+
+    // JMH reports NaN as the error of a single measurement
+    private static double finite(double value) {
+        return Double.isFinite(value) ? value : 0;
+    }
+
+    // throughput in ops/s with its 99.9% confidence half-width, and bytes allocated per op
+    static class Sample {
+        private final double score;
+        private final double error;
+        private final double allocatedBytes;
+
+        Sample(double score, double error, double allocatedBytes) {
+            this.score = score;
+            this.error = error;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        double relativeError() {
+            return score > 0 ? error / score : Double.POSITIVE_INFINITY;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package edu.montana.csci.csci468;
+
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.cli.BackendComparison;
+import edu.montana.csci.csci468.cli.Build;
+import edu.montana.csci.csci468.cli.BuildCache;
+import edu.montana.csci.csci468.cli.Diagnostic;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.eval.ExecutionContext;
+import edu.montana.csci.csci468.eval.ScriptProfiler;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.ParseErrorException;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.util.ProgramGenerator;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Command line front end for builds and CI, the batch counterpart to CatScriptServer.
+//
+//   catscript <compile|evaluate|transpile> [options] <file or directory>...
+//   catscript compare [options] [file or directory]...
+//   catscript profile [options] <file>
+class CatScriptCli {
+
+    private static final String USAGE = "usage: catscript <compile|evaluate|transpile> [options] <file or directory>...\n" +
+            "  -o, --out <dir>   where outputs are written (default: catscript-out)\n" +
+            "  -j, --jobs <n>    files built in parallel (default: one per core)\n" +
+            "  -w, --watch       rebuild changed files until interrupted\n" +
+            "      --json        diagnostics and summaries as JSON lines on stdout\n" +
+            "      --force       rebuild everything, ignoring the build cache\n" +
+            "usage: catscript compare [options] [file or directory]...\n" +
+            "  -n, --runs <n>    measured runs per backend (default: 5)\n" +
+            "      --warmup <n>  unmeasured runs first, at least 1 (default: 2)\n" +
+            "      --seeds <n>   also compare n generated programs, seeds 0 to n-1\n" +
+            "      --json        reports and the summary as JSON lines on stdout\n" +
+            "usage: catscript profile [options] <file>\n" +
+            "  -c, --compiled    profile the compiled program instead of the interpreter\n" +
+            "  -i, --interval <micros>  time between samples (default: 1000)\n" +
+            "  collapsed stacks go to stdout, the hottest lines to stderr\n";
+
+    public static void main(String[] args) throws Exception {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    // 0 when everything built, 1 when a file failed, 2 for bad arguments
+    static int run(String[] args, PrintStream out, PrintStream err) throws Exception {
+        if (args.length == 0) {
+            err.print(USAGE);
+            return 2;
+        }
+        if (args[0].equals("compare")) {
+            return compare(args, out, err);
+        }
+        if (args[0].equals("profile")) {
+            return profile(args, out, err);
+        }
+        Build.Mode mode;
+        try {
+            mode = Build.Mode.valueOf(args[0].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            err.print("unknown command '" + args[0] + "'\n" + USAGE);
+            return 2;
+        }
+        Path outputDirectory = Paths.get("catscript-out");
+        int jobs = Runtime.getRuntime().availableProcessors();
+        boolean watch = false;
+        boolean json = false;
+        boolean force = false;
+        List<Path> roots = new ArrayList<>();
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-o": case "--out": outputDirectory = Paths.get(args[++i]); break;
+                    case "-j": case "--jobs": jobs = Integer.parseInt(args[++i]); break;
+                    case "-w": case "--watch": watch = true; break;
+                    case "--json": json = true; break;
+                    case "--force": force = true; break;
+                    default:
+                        if (args[i].startsWith("-")) {
+                            err.print("unknown option '" + args[i] + "'\n" + USAGE);
+                            return 2;
+                        }
+                        roots.add(Paths.get(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            err.print(USAGE);
+            return 2;
+        }
+        for (Path root : roots) {
+            if (!Files.exists(root)) {
+                err.println("no such file or directory: " + root);
+                return 2;
+            }
+        }
+        if (roots.isEmpty() || jobs < 1) {
+            err.print(USAGE);
+            return 2;
+        }
+
+        boolean jsonOutput = json;
+        Consumer<Diagnostic> diagnostics = diagnostic -> {
+            if (jsonOutput) {
+                out.println(diagnostic.toJson());
+            } else {
+                err.println(diagnostic);
+            }
+        };
+        Consumer<Build.Result> summary = result -> out.println(jsonOutput ? result.toJson() : result.toString());
+
+        BuildCache cache = BuildCache.load(outputDirectory.resolve(Build.CACHE_FILE));
+        if (force) {
+            cache.clear();
+        }
+        Build build = new Build(mode, outputDirectory, jobs, cache, diagnostics);
+        if (watch) {
+            build.watch(roots, summary);
+            return 0;
+        }
+        Build.Result result = build.run(roots);
+        summary.accept(result);
+        return result.getFailed() == 0 ? 0 : 1;
+    }
+
+    // 0 when every backend agreed on every program, 1 on a mismatch or a program that
+    // doesn't verify, 2 for bad arguments
+    static int compare(String[] args, PrintStream out, PrintStream err) throws Exception {
+        int runs = 5;
+        int warmups = 2;
+        int seeds = 0;
+        boolean json = false;
+        List<Path> roots = new ArrayList<>();
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-n": case "--runs": runs = Integer.parseInt(args[++i]); break;
+                    case "--warmup": warmups = Integer.parseInt(args[++i]); break;
+                    case "--seeds": seeds = Integer.parseInt(args[++i]); break;
+                    case "--json": json = true; break;
+                    default:
+                        if (args[i].startsWith("-")) {
+                            err.print("unknown option '" + args[i] + "'\n" + USAGE);
+                            return 2;
+                        }
+                        roots.add(Paths.get(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            err.print(USAGE);
+            return 2;
+        }
+        for (Path root : roots) {
+            if (!Files.exists(root)) {
+                err.println("no such file or directory: " + root);
+                return 2;
+            }
+        }
+        if ((roots.isEmpty() && seeds <= 0) || runs < 1 || warmups < 1) {
+            err.print(USAGE);
+            return 2;
+        }
+
+        Map<String, String> programs = BackendComparison.readCorpus(roots);
+        for (int seed = 0; seed < seeds; seed++) {
+            programs.put("seed " + seed, new ProgramGenerator(seed).generate());
+        }
+        boolean jsonOutput = json;
+        Consumer<Diagnostic> diagnostics = diagnostic -> {
+            if (jsonOutput) {
+                out.println(diagnostic.toJson());
+            } else {
+                err.println(diagnostic);
+            }
+        };
+        BackendComparison comparison = new BackendComparison(warmups, runs, diagnostics);
+        BackendComparison.Summary summary = comparison.run(programs,
+                report -> out.print(jsonOutput ? report.toJson() + "\n" : report.toString()));
+        out.println(jsonOutput ? summary.toJson() : summary.toString());
+        return summary.getMismatches() == 0 && summary.getFailed() == 0 ? 0 : 1;
+    }
+
+    // 0 when the program ran, 1 when it didn't verify or failed, 2 for bad arguments
+    static int profile(String[] args, PrintStream out, PrintStream err) throws Exception {
+        boolean compiled = false;
+        long intervalMicros = ScriptProfiler.DEFAULT_INTERVAL_MICROS;
+        Path file = null;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-c": case "--compiled": compiled = true; break;
+                    case "-i": case "--interval": intervalMicros = Long.parseLong(args[++i]); break;
+                    default:
+                        if (args[i].startsWith("-") || file != null) {
+                            err.print("unexpected argument '" + args[i] + "'\n" + USAGE);
+                            return 2;
+                        }
+                        file = Paths.get(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            err.print(USAGE);
+            return 2;
+        }
+        if (file == null || intervalMicros < 1) {
+            err.print(USAGE);
+            return 2;
+        }
+        if (!Files.isRegularFile(file)) {
+            err.println("no such file: " + file);
+            return 2;
+        }
+
+        CatScriptProgram program = new CatScriptParser().parse(Files.readString(file, StandardCharsets.UTF_8));
+        try {
+            program.verify();
+        } catch (ParseErrorException e) {
+            Diagnostic.fromParseErrors(file.toString(), e.getErrors()).forEach(err::println);
+            return 1;
+        }
+        program.optimize();
+        ScriptProfiler profiler = new ScriptProfiler(intervalMicros);
+        ExecutionContext context = new ExecutionContext(null, ExecutionBudget.fromSystemProperties());
+        ScriptProfiler.Profile profile;
+        try {
+            profile = compiled ? profiler.run(new ByteCodeGenerator(program)
+                    .setSourceName(file.getFileName().toString()).compileProgram(), context) :
+                    profiler.interpret(program, context);
+        } catch (RuntimeException e) {
+            err.println(Diagnostic.fromException(file.toString(), "RUNTIME_ERROR", e));
+            return 1;
+        }
+        out.print(profile.toCollapsed());
+        err.print(profile);
+        return 0;
+    }
+}
@@ -1,32 +1,66 @@
 package edu.montana.csci.csci468;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompiledProgram;
+import edu.montana.csci.csci468.bytecode.TieredCompiler;
+import edu.montana.csci.csci468.eval.BudgetExceededException;
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.eval.ExecutionContext;
 import edu.montana.csci.csci468.js.JSTranspiler;
-import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.js.ScriptEnginePool;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.ParseErrorException;
+import edu.montana.csci.csci468.parser.ParserPool;
 import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
-import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
-import edu.montana.csci.csci468.tokenizer.TokenList;
-import edu.montana.csci.csci468.util.HTMLParseTreeRenderer;
+import edu.montana.csci.csci468.util.AdmissionController;
+import edu.montana.csci.csci468.util.BatchProcessor;
+import edu.montana.csci.csci468.util.DetachableWriter;
+import edu.montana.csci.csci468.util.Json;
+import edu.montana.csci.csci468.util.Metrics;
+import edu.montana.csci.csci468.util.OverloadedException;
+import edu.montana.csci.csci468.util.ParseTreeCache;
+import edu.montana.csci.csci468.util.ScriptExecutor;
 import edu.montana.csci.csci468.util.Web;
+import spark.Request;
+import spark.Response;
 import spark.Spark;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import static spark.Spark.*;
 
 class CatScriptServer {
+
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    private static final String ADMISSION_TICKET = "catscript.admissionTicket";
+    // last line of a streamed response whose script failed after output had started
+    static final String STREAM_ERROR_PREFIX = "#error ";
+
     public static void main(String[] args) {
         port(6789);
+        // request threads only wait on script jobs, so the pool can be sized well past the core count
+        threadPool(Integer.getInteger("catscript.server.threads", 200));
         Spark.staticFiles.location("/public");
         Web.init();
+        // engine start-up is the bulk of a cold /transpile, so pay it before the first request
+        ScriptEnginePool.getDefault().prewarm(Integer.getInteger("catscript.js.prewarm", 1));
+        admit(AdmissionController.Priority.CHEAP, "/tokenize", "/parse");
+        admit(AdmissionController.Priority.EXPENSIVE, "/evaluate", "/transpile", "/compile", "/batch");
 
         get("/", (req, resp) -> {
 
@@ -48,61 +82,197 @@ class CatScriptServer {
 
         get("/tokenize", (req, resp) -> {
             String source = req.queryParams("src");
-            TokenList tokens = new CatScriptTokenizer(source).getTokens();
-            return "<pre>" +
+            return ParserPool.withTokens(source, tokens -> "<pre>" +
                     tokens.stream().map(token -> token.toString() + "\n").collect(Collectors.toList()) +
-                    "</pr>";
+                    "</pr>");
         });
 
+        // rendered straight to the response; small trees are cached by source hash
         get("/parse", (req, resp) -> {
             String source = req.queryParams("src");
-            CatScriptProgram program = new CatScriptParser().parse(source);
-            return HTMLParseTreeRenderer.render(program);
+            resp.type("text/html; charset=utf-8");
+            Writer out = new BufferedWriter(new OutputStreamWriter(resp.raw().getOutputStream(), StandardCharsets.UTF_8));
+            ParseTreeCache.getDefault().render(source, () -> ParserPool.parse(source), out);
+            out.flush();
+            return "";
         });
 
         get("/evaluate", (req, resp) -> {
             String source = req.queryParams("src");
-            CatScriptProgram program = new CatScriptParser().parse(source);
-            try {
-                program.verify();
-                program.execute();
-                return program.getOutput();
-            } catch (ParseErrorException parseErrorException) {
-                parseErrorException.printStackTrace();
-                return "<pre>" + parseErrorException.getMessage() + "</pre>";
-            }
+            boolean tiered = Boolean.parseBoolean(req.queryParams("tiered"));
+            return runScript(req, resp, context -> {
+                CatScriptProgram program = ParserPool.parse(source);
+                try {
+                    program.verify();
+                    program.optimize();
+                    TieredCompiler tieredCompiler = tiered ? TieredCompiler.getDefault() : null;
+                    program.setContext(context);
+                    CatscriptRuntime runtime = new CatscriptRuntime(tieredCompiler, context.getBudget());
+                    try {
+                        Metrics.measure(Metrics.Phase.EXECUTE, () -> program.execute(runtime));
+                    } catch (BudgetExceededException e) {
+                        writeErrorTrailer(context, e);
+                    }
+                    context.flushOutput();
+                    return context.getOutput();
+                } catch (ParseErrorException parseErrorException) {
+                    parseErrorException.printStackTrace();
+                    return "<pre>" + parseErrorException.getMessage() + "</pre>";
+                }
+            });
         });
 
-        get("/transpile", (req, resp) -> {
+        get("/transpile", (req, resp) -> ScriptExecutor.getDefault().run(() -> {
             String source = req.queryParams("src");
 
-            CatScriptProgram program = new CatScriptParser().parse(source);
+            CatScriptProgram program = ParserPool.parse(source);
             try {
                 program.verify();
+                program.optimize();
                 JSTranspiler jsTranspiler = new JSTranspiler(program);
                 String jsSource = jsTranspiler.getJavascriptSource();
                 String output = jsTranspiler.evaluate();
-                return "<pre>" + "\n\n  Source =================\n\n" + jsSource + "\n\n  Output =================\n\n" + output + "</pre>";
+                return "<pre>" + "\n\n  Source =================\n\n" + jsSource + "\n\n  Output =================\n\n" + output +
+                        "\n\n  Source Map =============\n\n" + jsTranspiler.getSourceMap() + "</pre>";
             } catch (ParseErrorException parseErrorException) {
                 parseErrorException.printStackTrace();
                 return "<pre>" + parseErrorException.getMessage() + "</pre>";
             }
-        });
+        }));
 
         get("/compile", (req, resp) -> {
             String source = req.queryParams("src");
-            CatScriptProgram program = new CatScriptParser().parse(source);
-            try {
-                program.verify();
-                ByteCodeGenerator byteCodeGenerator = new ByteCodeGenerator(program);
-                CatScriptProgram compiledProgram = byteCodeGenerator.compileToBytecode();
-                compiledProgram.execute();
-                return compiledProgram.getOutput();
-            } catch (ParseErrorException parseErrorException) {
-                parseErrorException.printStackTrace();
-                return "<pre>" + parseErrorException.getMessage() + "</pre>";
+            String dump = req.queryParams("dump");
+            String verify = req.queryParams("verify");
+            return runScript(req, resp, context -> {
+                CatScriptProgram program = ParserPool.parse(source);
+                try {
+                    program.verify();
+                    program.optimize();
+                    ByteCodeGenerator byteCodeGenerator = new ByteCodeGenerator(program);
+                    if (dump != null) {
+                        byteCodeGenerator.setDumpClass(Boolean.parseBoolean(dump));
+                    }
+                    if (verify != null) {
+                        byteCodeGenerator.setVerifyClass(Boolean.parseBoolean(verify));
+                    }
+                    CompiledProgram compiledProgram = byteCodeGenerator.compileProgram();
+                    try {
+                        Metrics.measure(Metrics.Phase.EXECUTE, () -> compiledProgram.execute(context));
+                    } catch (BudgetExceededException e) {
+                        writeErrorTrailer(context, e);
+                    }
+                    context.flushOutput();
+                    return context.getOutput();
+                } catch (ParseErrorException parseErrorException) {
+                    parseErrorException.printStackTrace();
+                    return "<pre>" + parseErrorException.getMessage() + "</pre>";
+                }
+            });
+        });
+
+        get("/metrics", (req, resp) -> {
+            resp.type("text/plain; version=0.0.4");
+            return Metrics.renderPrometheus() + AdmissionController.getDefault().renderPrometheus();
+        });
+
+        // newline-delimited JSON jobs in, one JSON result line out per job as soon as it finishes;
+        // a write error means the client is gone, and the rest of the batch is dropped
+        post("/batch", (req, resp) -> {
+            resp.type("application/x-ndjson");
+            PrintWriter writer = resp.raw().getWriter();
+            BatchProcessor.getDefault().process(req.raw().getReader(), result -> {
+                writer.println(result);
+                writer.flush();
+            }, writer::checkError);
+            return "";
+        });
+
+        exception(BudgetExceededException.class, (e, req, resp) -> {
+            resp.status(422);
+            resp.type("application/json");
+            resp.body(budgetError(e));
+        });
+
+        exception(RejectedExecutionException.class, (e, req, resp) -> {
+            resp.status(503);
+            if (e instanceof OverloadedException) {
+                resp.header("Retry-After", String.valueOf(((OverloadedException) e).getRetryAfterSeconds()));
             }
+            resp.body(e.getMessage());
+        });
+
+        exception(TimeoutException.class, (e, req, resp) -> {
+            resp.status(504);
+            resp.body(e.getMessage());
         });
+    }
+
+    private static String budgetError(BudgetExceededException e) {
+        return "{\"error\":\"budget_exceeded\",\"kind\":\"" + e.getKind().name().toLowerCase() +
+                "\",\"limit\":" + e.getLimit() + ",\"message\":" + Json.quote(e.getMessage()) + "}";
+    }
+
+    // requests have to get past admission before anything is read or tokenized; the ticket is
+    // released in an afterAfter filter so it comes back even when the handler throws
+    private static void admit(AdmissionController.Priority priority, String... paths) {
+        for (String path : paths) {
+            before(path, (req, resp) -> req.attribute(ADMISSION_TICKET, AdmissionController.getDefault().admit(req.ip(), priority)));
+            afterAfter(path, (req, resp) -> {
+                AdmissionController.Ticket ticket = req.attribute(ADMISSION_TICKET);
+                if (ticket != null) {
+                    ticket.close();
+                }
+            });
+        }
+    }
+
+    private interface ScriptJob {
+        Object run(ExecutionContext context) throws Exception;
+    }
+
+    // runs a job on the ScriptExecutor with a fresh context; jobs must not touch req or resp,
+    // since the request thread may return (on a timeout) while the worker is still going.
+    //
+    // With ?stream=true print output goes to the response while the program is still running;
+    // the writer sits on the raw output stream so a client disconnect aborts the script.  The
+    // worker only reaches the response through a DetachableWriter, which is cut off before the
+    // handler returns.
+    //
+    // A streamed run cannot fail with a status code: the response is committed, with 200, as
+    // soon as the first buffer fills.  Streamed runs therefore always answer 200, and a budget
+    // failure or timeout ends the body with a STREAM_ERROR_PREFIX line holding the same JSON
+    // that a buffered run gets with its 422 or 504.
+    private static Object runScript(Request req, Response resp, ScriptJob job) throws Exception {
+        ExecutionBudget budget = ExecutionBudget.fromSystemProperties();
+        if (!Boolean.parseBoolean(req.queryParams("stream"))) {
+            ExecutionContext context = new ExecutionContext(null, budget);
+            return ScriptExecutor.getDefault().run(() -> job.run(context));
+        }
+        resp.type("text/plain; charset=utf-8");
+        resp.raw().setBufferSize(STREAM_BUFFER_SIZE);
+        OutputStreamWriter writer = new OutputStreamWriter(resp.raw().getOutputStream(), StandardCharsets.UTF_8);
+        DetachableWriter stream = new DetachableWriter(new BufferedWriter(writer, STREAM_BUFFER_SIZE));
+        ExecutionContext context = new ExecutionContext(stream, budget);
+        try {
+            return ScriptExecutor.getDefault().run(() -> job.run(context));
+        } catch (TimeoutException e) {
+            Writer out = stream.detach();
+            out.write(STREAM_ERROR_PREFIX + "{\"error\":\"timeout\",\"message\":" + Json.quote(e.getMessage()) + "}\n");
+            out.flush();
+            return "";
+        } finally {
+            stream.detach();
+        }
+    }
 
+    // buffered runs rethrow so the exception handler can answer 422; streamed ones write the
+    // trailer to their own writer, after everything the script printed
+    private static void writeErrorTrailer(ExecutionContext context, BudgetExceededException e) throws IOException {
+        Writer stream = context.getOutputWriter();
+        if (stream == null) {
+            throw e;
+        }
+        stream.write(STREAM_ERROR_PREFIX + budgetError(e) + "\n");
     }
 }
\ No newline at end of file
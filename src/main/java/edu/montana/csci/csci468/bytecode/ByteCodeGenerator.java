@@ -1,12 +1,26 @@
 package edu.montana.csci.csci468.bytecode;
 
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.parser.CatscriptType;
+import edu.montana.csci.csci468.parser.ParseElement;
 import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
+import edu.montana.csci.csci468.tokenizer.Token;
+import edu.montana.csci.csci468.util.Metrics;
 import org.objectweb.asm.*;
 import org.objectweb.asm.util.CheckClassAdapter;
 import org.objectweb.asm.util.TraceClassVisitor;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
 import java.util.Stack;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -14,7 +28,12 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class ByteCodeGenerator {
 
     private static final AtomicInteger classInteger = new AtomicInteger();
-    private static final DynamicClassLoader CLASS_LOADER = new DynamicClassLoader();
+
+    // class dumping and verification are diagnostics, off unless asked for
+    public static final String DUMP_PROPERTY = "catscript.bytecode.dump";
+    public static final String VERIFY_PROPERTY = "catscript.bytecode.verify";
+    public static final String DUMP_FILE_PROPERTY = "catscript.bytecode.dumpFile";
+    public static final String DEFAULT_SOURCE_NAME = "program.cat";
 
     private ClassWriter classWriter;
     private MethodGenerator currentMethod;
@@ -23,32 +42,122 @@ public class ByteCodeGenerator {
     private final CatScriptProgram program;
     private String internalClassName;
     private String dotClassName;
+    private String className;
+    private String sourceName = DEFAULT_SOURCE_NAME;
+
+    private boolean dumpClass = Boolean.getBoolean(DUMP_PROPERTY);
+    private boolean verifyClass = Boolean.getBoolean(VERIFY_PROPERTY);
+    private Path dumpFile = defaultDumpFile();
 
     public ByteCodeGenerator(CatScriptProgram program) {
         this.program = program;
     }
 
+    public ByteCodeGenerator setDumpClass(boolean dumpClass) {
+        this.dumpClass = dumpClass;
+        return this;
+    }
+
+    public ByteCodeGenerator setVerifyClass(boolean verifyClass) {
+        this.verifyClass = verifyClass;
+        return this;
+    }
+
+    public ByteCodeGenerator setDumpFile(Path dumpFile) {
+        this.dumpFile = dumpFile;
+        return this;
+    }
+
+    // a fixed internal name for the generated class instead of a numbered one, for class files
+    // written to disk
+    public ByteCodeGenerator setClassName(String internalName) {
+        this.className = internalName;
+        return this;
+    }
+
+    // the script's file name, recorded as the class's source file for stack traces and profilers
+    public ByteCodeGenerator setSourceName(String sourceName) {
+        this.sourceName = sourceName;
+        return this;
+    }
+
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    public boolean isDumpClass() {
+        return dumpClass;
+    }
+
+    public boolean isVerifyClass() {
+        return verifyClass;
+    }
+
+    public Path getDumpFile() {
+        return dumpFile;
+    }
+
     public CatScriptProgram compileToBytecode() {
+        return compileProgram().newInstance();
+    }
+
+    // the loaded class on its own, for callers that run the same program many times
+    public CompiledProgram compileProgram() {
+        byte[] classBytes = generateClass();
+        return loadClass(dotClassName, classBytes);
+    }
+
+    // the class file without loading it
+    public byte[] generateClass() {
+        return Metrics.measure(Metrics.Phase.CODEGEN, () -> {
+            startClass();
+
+            currentMethod = makeMethod(Opcodes.ACC_PUBLIC, "execute", "()V");
+            program.compile(this);
+            currentMethod.close();
+
+            return finishClass();
+        });
+    }
+
+    // compiles just the given functions as methods of a fresh program class, used by
+    // the tiered runtime to swap hot functions out of the interpreter
+    public CompiledProgram compileFunctions(Collection<FunctionDefinitionStatement> functions) {
+        byte[] classBytes = Metrics.measure(Metrics.Phase.CODEGEN, () -> {
+            startClass();
+            for (FunctionDefinitionStatement function : functions) {
+                function.compile(this);
+            }
+            return finishClass();
+        });
+        return loadClass(dotClassName, classBytes);
+    }
+
+    private void startClass() {
         methodStack = new Stack<>();
         classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
-        internalClassName = "edu/montana/csci/csci466/bytecode/CatScriptProgram" + classInteger.incrementAndGet();
+        internalClassName = className != null ? className :
+                "edu/montana/csci/csci466/bytecode/CatScriptProgram" + classInteger.incrementAndGet();
         dotClassName = internalClassName.replace('/', '.');
         makeClass(internalClassName);
         makeConstructor();
+    }
 
-        currentMethod = makeMethod(Opcodes.ACC_PUBLIC, "execute", "()V");
-        program.compile(this);
-        currentMethod.close();
-
+    private byte[] finishClass() {
         classWriter.visitEnd();
         byte[] classBytes = classWriter.toByteArray();
-        printClassASM(classBytes);
-        return loadClass(dotClassName, classBytes);
+        if (dumpClass) {
+            printClassASM(classBytes);
+        } else if (verifyClass) {
+            verifyClassASM(classBytes);
+        }
+        return classBytes;
     }
 
     private void makeClass(String className) {
-        classWriter.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC,
+        classWriter.visit(Opcodes.V11, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL,
                 className, null, internalNameFor(CatScriptProgram.class) , null);
+        classWriter.visitSource(sourceName, null);
     }
 
     private void makeConstructor() {
@@ -64,6 +173,22 @@ public class ByteCodeGenerator {
         return name.replace(".", "/");
     }
 
+    public static boolean isPrimitive(CatscriptType type) {
+        return type.equals(CatscriptType.INT) || type.equals(CatscriptType.BOOLEAN);
+    }
+
+    public static String descriptorFor(CatscriptType type) {
+        if (type.equals(CatscriptType.INT)) {
+            return "I";
+        } else if (type.equals(CatscriptType.BOOLEAN)) {
+            return "Z";
+        } else if (type.equals(CatscriptType.VOID)) {
+            return "V";
+        } else {
+            return "L" + internalNameFor(type.getJavaType()) + ";";
+        }
+    }
+
     public void pushMethod(int access, String name, String descriptor) {
         methodStack.push(currentMethod);
         currentMethod = makeMethod(access, name, descriptor);
@@ -77,31 +202,65 @@ public class ByteCodeGenerator {
     private MethodGenerator makeMethod(int access, String name, String descriptor) {
         MethodVisitor method = classWriter.visitMethod(access, name, descriptor, null, null);
         method.visitCode();
-        return new MethodGenerator(method);
+        MethodGenerator generator = new MethodGenerator(method);
+        generator.declareLocal("this", "L" + internalClassName + ";", 0);
+        return generator;
+    }
+
+    private static Path defaultDumpFile() {
+        String dumpFile = System.getProperty(DUMP_FILE_PROPERTY);
+        if (dumpFile == null || dumpFile.isBlank()) {
+            return null;
+        }
+        return Paths.get(dumpFile);
     }
 
     private void printClassASM(byte[] classBytes) {
         StringWriter writer = new StringWriter();
         var visitor = new TraceClassVisitor(new PrintWriter(writer));
-        CheckClassAdapter checkAdapter = new CheckClassAdapter(visitor);
         ClassReader reader = new ClassReader(classBytes);
-        reader.accept(checkAdapter, 0);
+        if (verifyClass) {
+            reader.accept(new CheckClassAdapter(visitor), 0);
+        } else {
+            reader.accept(visitor, 0);
+        }
         String decompiledTransformedClass = writer.getBuffer().toString();
-        System.out.println(" JVM Bytecode ===================================\n");
-        System.out.println(decompiledTransformedClass);
-        System.out.println("\n ================================================");
+        writeDiagnostics(" JVM Bytecode ===================================\n\n" +
+                decompiledTransformedClass +
+                "\n\n ================================================\n");
+    }
+
+    private void verifyClassASM(byte[] classBytes) {
+        StringWriter writer = new StringWriter();
+        CheckClassAdapter.verify(new ClassReader(classBytes), false, new PrintWriter(writer));
+        String problems = writer.getBuffer().toString();
+        if (!problems.isEmpty()) {
+            writeDiagnostics(" JVM Bytecode Verification (" + dotClassName + ") ===\n\n" + problems + "\n");
+        }
     }
 
-    private CatScriptProgram loadClass(String dotClassName, byte[] classBytes) {
+    private void writeDiagnostics(String text) {
+        if (dumpFile == null) {
+            System.out.println(text);
+            return;
+        }
         try {
-            CLASS_LOADER.defineClass(dotClassName, classBytes);
-            Class<?> clazz = CLASS_LOADER.loadClass(dotClassName);
-            return (CatScriptProgram) clazz.getConstructor().newInstance();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            Files.write(dumpFile, text.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
+    private CompiledProgram loadClass(String dotClassName, byte[] classBytes) {
+        return Metrics.measure(Metrics.Phase.CLASS_LOAD, () -> {
+            // a loader per class, so generated classes can be unloaded once nothing uses them
+            Class<?> clazz = new DynamicClassLoader().defineClass(dotClassName, classBytes);
+            return new CompiledProgram(clazz.asSubclass(CatScriptProgram.class), classBytes.length,
+                    program.getStatementCount());
+        });
+    }
+
     public Integer nextLocalStorageSlot() {
         return currentMethod.nextLocalStorageSlot();
     }
@@ -114,13 +273,56 @@ public class ByteCodeGenerator {
         return currentMethod.resolveLocalStorageSlotFor(name);
     }
 
+    // names the local for debuggers and profilers, call right after its first store
+    public void declareLocal(String name, CatscriptType type, int slot) {
+        currentMethod.declareLocal(name, descriptorFor(type), slot);
+    }
+
+    // locals declared inside go out of scope when it closes
+    public void openScope() {
+        currentMethod.openScope();
+    }
+
+    public void closeScope() {
+        currentMethod.closeScope();
+    }
+
+    // a line number table entry for the element's first line, so stack traces and profilers
+    // can point at CatScript source
+    public void markLine(ParseElement element) {
+        Token start = element.getStart();
+        if (start != null) {
+            currentMethod.markLine(start.getLine());
+        }
+    }
+
+    public void markTailCallTarget() {
+        currentMethod.markTailCallTarget();
+    }
+
+    public Label getTailCallTarget() {
+        return currentMethod.getTailCallTarget();
+    }
+
+    public void loadBudget() {
+        addVarInstruction(Opcodes.ALOAD, 0);
+        addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(CatScriptProgram.class),
+                "getBudget", "()L" + internalNameFor(ExecutionBudget.class) + ";");
+    }
+
+    // calls one of the no-argument ExecutionBudget checks (step, enterCall, exitCall)
+    public void addBudgetCheck(String check) {
+        loadBudget();
+        addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(ExecutionBudget.class), check, "()V");
+    }
+
     public String getProgramInternalName() {
         return internalClassName;
     }
 
     static class DynamicClassLoader extends ClassLoader {
-        public void defineClass(String name, byte[] bytes) {
-            defineClass(name, bytes, 0, bytes.length);
+        public Class<?> defineClass(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
         }
         @Override
         public Class<?> findClass(String name) throws ClassNotFoundException {
@@ -152,6 +354,10 @@ public class ByteCodeGenerator {
         currentMethod.addMethodInstruction(opcode, owner, name, descriptor);
     }
 
+    public void addInvokeDynamicInstruction(String name, String descriptor, Handle bootstrap, Object... bootstrapArguments) {
+        currentMethod.addInvokeDynamicInstruction(name, descriptor, bootstrap, bootstrapArguments);
+    }
+
     public void addJumpInstruction(int opcode, Label label) {
         currentMethod.addJumpInstruction(opcode, label);
     }
@@ -0,0 +1,54 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+// A tier-compiled function.  It outlives the run that compiled it, so it is bound to a
+// program class rather than an instance: each call names the instance, and with it the
+// output and budget, of the run that is making it.
+public class CompiledFunction {
+
+    private final String name;
+    private final CompiledProgram compiledProgram;
+    private final MethodHandle handle;
+
+    public CompiledFunction(CompiledProgram compiledProgram, FunctionDefinitionStatement function) {
+        this.name = function.getName();
+        this.compiledProgram = compiledProgram;
+        Class<? extends CatScriptProgram> programClass = compiledProgram.getProgramClass();
+        try {
+            MethodType methodType = MethodType.fromMethodDescriptorString(function.getDescriptor(),
+                    programClass.getClassLoader());
+            MethodHandle method = MethodHandles.lookup().findVirtual(programClass, name, methodType);
+            // (Object, Object[])Object, so the interpreter can call it without knowing the signature
+            this.handle = method.asType(method.type().generic())
+                    .asSpreader(Object[].class, function.getParameterCount());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to bind compiled function " + name, e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CompiledProgram getCompiledProgram() {
+        return compiledProgram;
+    }
+
+    // instance has to be of the compiled program's class, see CatscriptRuntime.getCompiledInstance
+    public Object invoke(CatScriptProgram instance, List<Object> args) {
+        try {
+            return (Object) handle.invokeExact((Object) instance, args.toArray());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new RuntimeException(throwable);
+        }
+    }
+}
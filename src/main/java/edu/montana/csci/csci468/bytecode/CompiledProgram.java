@@ -0,0 +1,66 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.eval.ExecutionContext;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.util.FlightRecorderEvents;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// A loaded program class, shareable across threads.  Each run gets a fresh instance, which
+// holds that run's globals, bound to the caller's ExecutionContext for output and budgets.
+public class CompiledProgram {
+
+    private final Class<? extends CatScriptProgram> programClass;
+    private final MethodHandle constructor;
+    private final int classSize;
+    private final int statements;
+
+    CompiledProgram(Class<? extends CatScriptProgram> programClass, int classSize, int statements) {
+        this.programClass = programClass;
+        this.classSize = classSize;
+        this.statements = statements;
+        try {
+            this.constructor = MethodHandles.publicLookup()
+                    .findConstructor(programClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(CatScriptProgram.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Class<? extends CatScriptProgram> getProgramClass() {
+        return programClass;
+    }
+
+    public int getClassSize() {
+        return classSize;
+    }
+
+    public CatScriptProgram newInstance() {
+        try {
+            return (CatScriptProgram) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    public CatScriptProgram execute(ExecutionContext context) {
+        CatScriptProgram program = newInstance();
+        program.setContext(context);
+        FlightRecorderEvents.ScriptExecutionEvent event =
+                FlightRecorderEvents.beginExecution("bytecode", statements, context, context.getBudget());
+        try {
+            program.execute();
+        } catch (RuntimeException | Error e) {
+            FlightRecorderEvents.abortExecution(event, e);
+            throw e;
+        } finally {
+            FlightRecorderEvents.endExecution(event);
+        }
+        return program;
+    }
+}
@@ -2,7 +2,11 @@ package edu.montana.csci.csci468.bytecode;
 
 import org.objectweb.asm.*;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -11,6 +15,10 @@ public class MethodGenerator implements AutoCloseable {
     private AtomicInteger localStorageSlot = new AtomicInteger();
     Map<String, Integer> localStorageMap = new HashMap<>();
     private final MethodVisitor delegate;
+    private Label tailCallTarget;
+    private int lastLine;
+    // named locals of each open block, written to the local variable table when it closes
+    private final Deque<List<LocalVariable>> scopes = new ArrayDeque<>();
 
     public Integer nextLocalStorageSlot() {
         return localStorageSlot.incrementAndGet();
@@ -28,10 +36,56 @@ public class MethodGenerator implements AutoCloseable {
 
     public MethodGenerator(MethodVisitor delgate) {
         this.delegate = delgate;
+        scopes.push(new ArrayList<>());
+    }
+
+    // self tail calls reassign the argument slots and jump back here
+    public void markTailCallTarget() {
+        tailCallTarget = new Label();
+        delegate.visitLabel(tailCallTarget);
+    }
+
+    public Label getTailCallTarget() {
+        return tailCallTarget;
+    }
+
+    // code from here on belongs to the given source line, until the next line is marked
+    public void markLine(int line) {
+        if (line != lastLine) {
+            Label start = new Label();
+            delegate.visitLabel(start);
+            delegate.visitLineNumber(line, start);
+            lastLine = line;
+        }
+    }
+
+    // the local in this slot holds a value from here to the end of the enclosing scope
+    public void declareLocal(String name, String descriptor, int slot) {
+        Label start = new Label();
+        delegate.visitLabel(start);
+        scopes.peek().add(new LocalVariable(name, descriptor, slot, start));
+    }
+
+    public void openScope() {
+        scopes.push(new ArrayList<>());
+    }
+
+    public void closeScope() {
+        List<LocalVariable> locals = scopes.pop();
+        if (!locals.isEmpty()) {
+            Label end = new Label();
+            delegate.visitLabel(end);
+            for (LocalVariable local : locals) {
+                delegate.visitLocalVariable(local.name, local.descriptor, null, local.start, end, local.slot);
+            }
+        }
     }
 
     @Override
     public void close()  {
+        while (!scopes.isEmpty()) {
+            closeScope();
+        }
         delegate.visitMaxs(0, 0);
         delegate.visitEnd();
     }
@@ -61,6 +115,10 @@ public class MethodGenerator implements AutoCloseable {
         delegate.visitMethodInsn(opcode, owner, name, descriptor);
     }
 
+    public void addInvokeDynamicInstruction(String name, String descriptor, Handle bootstrap, Object... bootstrapArguments) {
+        delegate.visitInvokeDynamicInsn(name, descriptor, bootstrap, bootstrapArguments);
+    }
+
     public void addJumpInstruction(int opcode, Label label) {
         delegate.visitJumpInsn(opcode, label);
     }
@@ -76,4 +134,18 @@ public class MethodGenerator implements AutoCloseable {
             delegate.visitLdcInsn(value);
         }
     }
+
+    private static class LocalVariable {
+        private final String name;
+        private final String descriptor;
+        private final int slot;
+        private final Label start;
+
+        LocalVariable(String name, String descriptor, int slot, Label start) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.slot = slot;
+            this.start = start;
+        }
+    }
 }
@@ -0,0 +1,170 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.expressions.FunctionCallExpression;
+import edu.montana.csci.csci468.parser.expressions.IdentifierExpression;
+import edu.montana.csci.csci468.parser.expressions.SyntaxErrorExpression;
+import edu.montana.csci.csci468.parser.statements.AssignmentStatement;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.ForStatement;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
+import edu.montana.csci.csci468.parser.statements.SyntaxErrorStatement;
+import edu.montana.csci.csci468.parser.statements.VariableStatement;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+// Second tier of the tiered runtime: functions start in the interpreter, and once one has
+// been invoked `threshold` times it is compiled in the background and swapped in on the
+// next call.  Only functions that touch nothing but their own parameters and locals (and
+// call other such functions) are compiled, everything else stays interpreted.  A compile
+// that fails or is rejected by the executor is retried after another `threshold` calls, up
+// to `maxAttempts` times in total, since a busy executor or a missing callee can clear up.
+public class TieredCompiler {
+
+    public static final String THRESHOLD_PROPERTY = "catscript.tiered.threshold";
+    public static final int DEFAULT_THRESHOLD = 1000;
+    public static final String MAX_ATTEMPTS_PROPERTY = "catscript.tiered.maxAttempts";
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    public enum CompileState {
+        NOT_QUEUED, QUEUED, FAILED
+    }
+
+    private static TieredCompiler defaultCompiler;
+
+    private final int threshold;
+    private final int maxAttempts;
+    private final Executor executor;
+
+    public TieredCompiler(int threshold, Executor executor) {
+        this(threshold, DEFAULT_MAX_ATTEMPTS, executor);
+    }
+
+    public TieredCompiler(int threshold, int maxAttempts, Executor executor) {
+        this.threshold = threshold;
+        this.maxAttempts = maxAttempts;
+        this.executor = executor;
+    }
+
+    public static synchronized TieredCompiler getDefault() {
+        if (defaultCompiler == null) {
+            int threshold = Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+            int maxAttempts = Integer.getInteger(MAX_ATTEMPTS_PROPERTY, DEFAULT_MAX_ATTEMPTS);
+            defaultCompiler = new TieredCompiler(threshold, maxAttempts, Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "catscript-tiered-compiler");
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+        return defaultCompiler;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void recordInvocation(FunctionDefinitionStatement function) {
+        // stop counting while a compile is pending or once the attempts are used up, so the
+        // counter never runs past threshold * maxAttempts
+        int attempts = function.getCompileAttempts();
+        if (attempts >= maxAttempts || function.getCompileState() == CompileState.QUEUED) {
+            return;
+        }
+        int invocationCount = function.countInvocation();
+        if (invocationCount >= threshold * (attempts + 1) && function.markQueued()) {
+            try {
+                executor.execute(() -> {
+                    boolean compiled = false;
+                    try {
+                        compiled = compile(function);
+                    } finally {
+                        function.compileFinished(compiled);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                function.compileFinished(false);
+            }
+        }
+    }
+
+    public boolean compile(FunctionDefinitionStatement function) {
+        Set<FunctionDefinitionStatement> functions = new LinkedHashSet<>();
+        if (!collectCompilable(function, functions)) {
+            return false;
+        }
+        CatScriptProgram program = function.getProgram();
+        try {
+            CompiledProgram compiledProgram = new ByteCodeGenerator(program).compileFunctions(functions);
+            for (FunctionDefinitionStatement compiled : functions) {
+                if (compiled.getCompiledFunction() == null) {
+                    compiled.setCompiledFunction(new CompiledFunction(compiledProgram, compiled));
+                }
+            }
+            return true;
+        } catch (RuntimeException | LinkageError e) {
+            // stay in the interpreter
+            return false;
+        }
+    }
+
+    private boolean collectCompilable(FunctionDefinitionStatement function, Set<FunctionDefinitionStatement> functions) {
+        if (!functions.add(function)) {
+            return true;
+        }
+        Set<String> locals = new HashSet<>();
+        for (int i = 0; i < function.getParameterCount(); i++) {
+            locals.add(function.getParameterName(i));
+        }
+        collectLocals(function, locals);
+        for (ParseElement child : function.getChildren()) {
+            if (!isCompilable(child, locals, functions)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void collectLocals(ParseElement element, Set<String> locals) {
+        if (element instanceof VariableStatement) {
+            locals.add(((VariableStatement) element).getVariableName());
+        } else if (element instanceof ForStatement) {
+            locals.add(((ForStatement) element).getVariableName());
+        }
+        for (ParseElement child : element.getChildren()) {
+            collectLocals(child, locals);
+        }
+    }
+
+    private boolean isCompilable(ParseElement element, Set<String> locals, Set<FunctionDefinitionStatement> functions) {
+        if (element instanceof SyntaxErrorStatement || element instanceof SyntaxErrorExpression) {
+            return false;
+        } else if (element instanceof IdentifierExpression) {
+            return locals.contains(((IdentifierExpression) element).getName());
+        } else if (element instanceof AssignmentStatement) {
+            if (!locals.contains(((AssignmentStatement) element).getVariableName())) {
+                return false;
+            }
+        } else if (element instanceof FunctionCallExpression) {
+            String name = ((FunctionCallExpression) element).getName();
+            FunctionDefinitionStatement callee = element.getProgram().getFunction(name);
+            if (callee == null || !collectCompilable(callee, functions)) {
+                return false;
+            }
+        }
+        for (ParseElement child : element.getChildren()) {
+            if (!isCompilable(child, locals, functions)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,471 @@
+package edu.montana.csci.csci468.cli;
+
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompiledProgram;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.eval.ExecutionContext;
+import edu.montana.csci.csci468.js.JSTranspiler;
+import edu.montana.csci.csci468.js.ScriptEnginePool;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.CatscriptType;
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.ParseErrorException;
+import edu.montana.csci.csci468.parser.expressions.AdditiveExpression;
+import edu.montana.csci.csci468.parser.expressions.Expression;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.PrintStatement;
+import edu.montana.csci.csci468.util.Json;
+import edu.montana.csci.csci468.util.Metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Runs each program through the interpreter, the bytecode compiler and the JavaScript
+// transpiler, checks that they all print the same thing and reports per backend wall time
+// and allocation side by side.  Every backend starts from the same verified and optimized
+// tree.  Times are split into prepare (code generation and class loading, or transpiling)
+// and execute, and each figure is the median over the measured runs; the first warm up run
+// supplies the output that is compared.  Allocation is what the running thread allocated.
+//
+// The JavaScript backend keeps the interpreter's semantics for arithmetic, division by zero
+// and equality, but prints lists the way JavaScript does ("1,2" rather than "[1, 2]").
+// Programs that print a value which may be a list, directly or concatenated into a string,
+// are still timed on it, but its output isn't compared.
+public class BackendComparison {
+
+    public enum Backend {
+        INTERPRETER, BYTECODE, JAVASCRIPT;
+
+        String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final int warmups;
+    private final int runs;
+    private final Consumer<Diagnostic> diagnostics;
+    private final boolean javascriptAvailable;
+
+    public BackendComparison(int warmups, int runs, Consumer<Diagnostic> diagnostics) {
+        this.warmups = Math.max(1, warmups);
+        this.runs = Math.max(1, runs);
+        this.diagnostics = diagnostics;
+        this.javascriptAvailable = ScriptEnginePool.getDefault().prewarm(1);
+    }
+
+    // every .cat file under the roots, keyed by path, in a stable order
+    public static Map<String, String> readCorpus(List<Path> roots) throws IOException {
+        Map<String, String> programs = new LinkedHashMap<>();
+        for (Path root : roots) {
+            List<Path> files;
+            if (Files.isDirectory(root)) {
+                try (Stream<Path> walk = Files.walk(root)) {
+                    files = walk.filter(Files::isRegularFile)
+                            .filter(file -> file.getFileName().toString().endsWith(Build.SOURCE_EXTENSION))
+                            .sorted().collect(Collectors.toList());
+                }
+            } else {
+                files = List.of(root);
+            }
+            for (Path file : files) {
+                programs.put(file.toString(), Files.readString(file, StandardCharsets.UTF_8));
+            }
+        }
+        return programs;
+    }
+
+    public Summary run(Map<String, String> programs, Consumer<ProgramReport> onProgram) {
+        Summary summary = new Summary();
+        for (Map.Entry<String, String> program : programs.entrySet()) {
+            ProgramReport report = compare(program.getKey(), program.getValue());
+            summary.count(report);
+            if (report != null) {
+                onProgram.accept(report);
+            }
+        }
+        return summary;
+    }
+
+    // null when the program doesn't verify, the problems go to the diagnostics consumer
+    public ProgramReport compare(String name, String source) {
+        CatScriptProgram program;
+        try {
+            program = new CatScriptParser().parse(source);
+            program.verify();
+            program.optimize();
+        } catch (ParseErrorException e) {
+            Diagnostic.fromParseErrors(name, e.getErrors()).forEach(diagnostics);
+            return null;
+        }
+        ProgramReport report = new ProgramReport(name);
+        if (printsLists(program)) {
+            report.unchecked.add(Backend.JAVASCRIPT);
+        }
+        for (Backend backend : Backend.values()) {
+            if (backend == Backend.JAVASCRIPT && !javascriptAvailable) {
+                report.measurements.put(backend, Measurement.unavailable());
+            } else {
+                report.measurements.put(backend, measure(backend, program));
+            }
+        }
+        report.checkOutputs();
+        return report;
+    }
+
+    private Measurement measure(Backend backend, CatScriptProgram program) {
+        Measurement measurement = new Measurement();
+        long[] prepareNanos = new long[runs];
+        long[] executeNanos = new long[runs];
+        long[] allocatedBytes = new long[runs];
+        for (int i = 0; i < warmups + runs; i++) {
+            long startBytes = Metrics.allocatedBytes();
+            long startNanos = System.nanoTime();
+            long preparedNanos = startNanos;
+            String output;
+            try {
+                Object prepared = prepare(backend, program);
+                preparedNanos = System.nanoTime();
+                output = execute(backend, program, prepared);
+            } catch (Exception e) {
+                output = null;
+                if (i == 0) {
+                    measurement.error = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+                }
+            }
+            long endNanos = System.nanoTime();
+            if (i == 0) {
+                measurement.output = output;
+            }
+            if (i >= warmups) {
+                prepareNanos[i - warmups] = preparedNanos - startNanos;
+                executeNanos[i - warmups] = endNanos - preparedNanos;
+                allocatedBytes[i - warmups] = Metrics.allocatedBytes() - startBytes;
+            }
+        }
+        measurement.prepareNanos = median(prepareNanos);
+        measurement.executeNanos = median(executeNanos);
+        measurement.allocatedBytes = median(allocatedBytes);
+        return measurement;
+    }
+
+    private Object prepare(Backend backend, CatScriptProgram program) {
+        switch (backend) {
+            case BYTECODE:
+                return new ByteCodeGenerator(program).compileProgram();
+            case JAVASCRIPT:
+                StringBuilder javascript = new StringBuilder();
+                JSTranspiler.transpile(program, javascript, JSTranspiler.DEFAULT_SOURCE_NAME, JSTranspiler.DEFAULT_GENERATED_NAME);
+                return javascript.toString();
+            default:
+                return program;
+        }
+    }
+
+    private String execute(Backend backend, CatScriptProgram program, Object prepared) throws Exception {
+        ExecutionContext context = new ExecutionContext(null, ExecutionBudget.fromSystemProperties());
+        switch (backend) {
+            case BYTECODE:
+                ((CompiledProgram) prepared).execute(context);
+                return context.getOutput();
+            case JAVASCRIPT:
+                return ScriptEnginePool.getDefault().evaluate((String) prepared);
+            default:
+                program.setContext(context);
+                program.execute();
+                return context.getOutput();
+        }
+    }
+
+    static boolean printsLists(ParseElement root) {
+        Deque<ParseElement> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            ParseElement element = pending.pop();
+            if (element instanceof PrintStatement && mayHoldList(((PrintStatement) element).getExpression())) {
+                return true;
+            }
+            if (element instanceof AdditiveExpression && ((AdditiveExpression) element).getType().equals(CatscriptType.STRING) &&
+                    (mayHoldList(((AdditiveExpression) element).getLeftHandSide()) ||
+                            mayHoldList(((AdditiveExpression) element).getRightHandSide()))) {
+                return true;
+            }
+            element.getChildren().forEach(pending::push);
+        }
+        return false;
+    }
+
+    private static boolean mayHoldList(Expression expression) {
+        CatscriptType type = expression.getType();
+        return type.equals(CatscriptType.OBJECT) || type instanceof CatscriptType.ListType;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    // "line 3: \"x\" vs \"y\"", or null when the outputs are the same
+    static String firstDifference(String expected, String actual) {
+        if (expected.equals(actual)) {
+            return null;
+        }
+        String[] expectedLines = expected.split("\n", -1);
+        String[] actualLines = actual.split("\n", -1);
+        for (int i = 0; ; i++) {
+            String left = i < expectedLines.length ? expectedLines[i] : null;
+            String right = i < actualLines.length ? actualLines[i] : null;
+            if (left == null || right == null || !left.equals(right)) {
+                return "line " + (i + 1) + ": " + quoteLine(left) + " vs " + quoteLine(right);
+            }
+        }
+    }
+
+    private static String quoteLine(String line) {
+        return line == null ? "end of output" : Json.quote(line);
+    }
+
+    public static class Measurement {
+        private boolean available = true;
+        private String output;
+        private String error;
+        private long prepareNanos;
+        private long executeNanos;
+        private long allocatedBytes;
+
+        private static Measurement unavailable() {
+            Measurement measurement = new Measurement();
+            measurement.available = false;
+            return measurement;
+        }
+
+        public boolean isAvailable() {
+            return available;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public long getPrepareNanos() {
+            return prepareNanos;
+        }
+
+        public long getExecuteNanos() {
+            return executeNanos;
+        }
+
+        public long getTotalNanos() {
+            return prepareNanos + executeNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+
+    public static class ProgramReport {
+        private final String name;
+        private final Map<Backend, Measurement> measurements = new EnumMap<>(Backend.class);
+        private final Set<Backend> unchecked = EnumSet.noneOf(Backend.class);
+        private String mismatch;
+
+        private ProgramReport(String name) {
+            this.name = name;
+        }
+
+        // the interpreter is the reference; a backend that fails where the reference
+        // didn't, or the other way around, is a mismatch as well
+        private void checkOutputs() {
+            Measurement reference = measurements.get(Backend.INTERPRETER);
+            for (Backend backend : Backend.values()) {
+                Measurement measurement = measurements.get(backend);
+                if (backend == Backend.INTERPRETER || !measurement.available || unchecked.contains(backend)) {
+                    continue;
+                }
+                String difference;
+                if (reference.error != null || measurement.error != null) {
+                    difference = (reference.error == null) == (measurement.error == null) ? null :
+                            "failed on " + (reference.error == null ? backend.label() : "interpreter") + " only";
+                } else {
+                    difference = firstDifference(reference.output, measurement.output);
+                }
+                if (difference != null) {
+                    mismatch = "interpreter and " + backend.label() + " differ, " + difference;
+                    return;
+                }
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Measurement getMeasurement(Backend backend) {
+            return measurements.get(backend);
+        }
+
+        public boolean isMatch() {
+            return mismatch == null;
+        }
+
+        public String getMismatch() {
+            return mismatch;
+        }
+
+        // backends that ran but whose output wasn't compared
+        public Set<Backend> getUnchecked() {
+            return unchecked;
+        }
+
+        // the available backend with the lowest prepare plus execute time, null if all failed
+        public Backend getFastest() {
+            Backend fastest = null;
+            for (Backend backend : Backend.values()) {
+                Measurement measurement = measurements.get(backend);
+                if (measurement.available && measurement.error == null &&
+                        (fastest == null || measurement.getTotalNanos() < measurements.get(fastest).getTotalNanos())) {
+                    fastest = backend;
+                }
+            }
+            return fastest;
+        }
+
+        public String toJson() {
+            StringBuilder json = new StringBuilder("{\"event\":\"comparison\",\"program\":").append(Json.quote(name))
+                    .append(",\"match\":").append(isMatch());
+            if (mismatch != null) {
+                json.append(",\"mismatch\":").append(Json.quote(mismatch));
+            }
+            if (!unchecked.isEmpty()) {
+                json.append(",\"unchecked\":[").append(unchecked.stream().map(backend -> Json.quote(backend.label()))
+                        .collect(Collectors.joining(","))).append("]");
+            }
+            Backend fastest = getFastest();
+            json.append(",\"fastest\":").append(fastest == null ? "null" : Json.quote(fastest.label()));
+            json.append(",\"backends\":{");
+            for (Backend backend : Backend.values()) {
+                Measurement measurement = measurements.get(backend);
+                json.append(backend.ordinal() == 0 ? "" : ",").append(Json.quote(backend.label()))
+                        .append(":{\"available\":").append(measurement.available);
+                if (measurement.available) {
+                    if (measurement.error != null) {
+                        json.append(",\"error\":").append(Json.quote(measurement.error));
+                    }
+                    json.append(",\"prepareNanos\":").append(measurement.prepareNanos)
+                            .append(",\"executeNanos\":").append(measurement.executeNanos)
+                            .append(",\"allocatedBytes\":").append(measurement.allocatedBytes);
+                }
+                json.append("}");
+            }
+            return json.append("}}").toString();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(name).append(": ")
+                    .append(mismatch == null ? "outputs match" : mismatch).append('\n');
+            for (Backend backend : Backend.values()) {
+                Measurement measurement = measurements.get(backend);
+                text.append(String.format("  %-12s", backend.label()));
+                if (!measurement.available) {
+                    text.append("unavailable on this JVM\n");
+                    continue;
+                }
+                text.append(String.format("prepare %10.3f ms  execute %10.3f ms  allocated %10.1f KB",
+                        measurement.prepareNanos / 1e6, measurement.executeNanos / 1e6, measurement.allocatedBytes / 1024.0));
+                if (measurement.error != null) {
+                    text.append("  failed: ").append(measurement.error);
+                }
+                if (unchecked.contains(backend)) {
+                    text.append("  output not compared");
+                }
+                text.append('\n');
+            }
+            return text.toString();
+        }
+    }
+
+    public static class Summary {
+        private int programs;
+        private int mismatches;
+        private int failed;
+        private final Map<Backend, Integer> fastest = new EnumMap<>(Backend.class);
+
+        private Summary() {
+            for (Backend backend : Backend.values()) {
+                fastest.put(backend, 0);
+            }
+        }
+
+        private void count(ProgramReport report) {
+            programs++;
+            if (report == null) {
+                failed++;
+                return;
+            }
+            if (!report.isMatch()) {
+                mismatches++;
+            }
+            Backend winner = report.getFastest();
+            if (winner != null) {
+                fastest.merge(winner, 1, Integer::sum);
+            }
+        }
+
+        public int getPrograms() {
+            return programs;
+        }
+
+        public int getMismatches() {
+            return mismatches;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getFastestCount(Backend backend) {
+            return fastest.get(backend);
+        }
+
+        public String toJson() {
+            StringBuilder json = new StringBuilder("{\"event\":\"summary\",\"programs\":").append(programs)
+                    .append(",\"mismatches\":").append(mismatches).append(",\"failed\":").append(failed)
+                    .append(",\"fastest\":{");
+            for (Backend backend : Backend.values()) {
+                json.append(backend.ordinal() == 0 ? "" : ",").append(Json.quote(backend.label())).append(':')
+                        .append(fastest.get(backend));
+            }
+            return json.append("}}").toString();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder().append(programs).append(" programs, ").append(mismatches)
+                    .append(" mismatches, ").append(failed).append(" failed to verify; fastest:");
+            for (Backend backend : Backend.values()) {
+                text.append(' ').append(backend.label()).append(' ').append(fastest.get(backend));
+            }
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package edu.montana.csci.csci468.cli;
+
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.eval.BudgetExceededException;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.eval.ExecutionContext;
+import edu.montana.csci.csci468.js.JSTranspiler;
+import edu.montana.csci.csci468.parser.ParseErrorException;
+import edu.montana.csci.csci468.parser.ParserPool;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.util.Hashes;
+import edu.montana.csci.csci468.util.Metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Builds every .cat file under a set of roots, `jobs` files at a time.  Outputs mirror the
+// source tree under the output directory: class files for compile (under a catscript/
+// package so they can go straight on a classpath), .js files with source maps for transpile
+// and captured print output for evaluate.  Files whose content hash matches the last
+// successful build and whose output is still there are skipped, as long as the compiler
+// version and, for evaluate, the budget settings are the same as they were for that build.
+public class Build {
+
+    public enum Mode {
+        COMPILE(".class"), EVALUATE(".out"), TRANSPILE(".js");
+
+        private final String extension;
+
+        Mode(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    public static final String SOURCE_EXTENSION = ".cat";
+    public static final String CACHE_FILE = ".catscript-cache";
+    // bump whenever a change to the parser, optimizer or a backend changes what gets written
+    public static final String COMPILER_VERSION = "3";
+    static final long WATCH_SETTLE_MILLIS = 200;
+
+    private final Mode mode;
+    private final Path outputDirectory;
+    private final int jobs;
+    private final BuildCache cache;
+    private final Consumer<Diagnostic> diagnostics;
+
+    public Build(Mode mode, Path outputDirectory, int jobs, BuildCache cache, Consumer<Diagnostic> diagnostics) {
+        this.mode = mode;
+        this.outputDirectory = outputDirectory.toAbsolutePath().normalize();
+        this.jobs = jobs;
+        this.cache = cache;
+        this.diagnostics = diagnostics;
+        cache.useFingerprint(keyPrefix(), fingerprint(mode));
+    }
+
+    // what, besides the source, decides the contents of an output
+    static String fingerprint(Mode mode) {
+        String version = Build.class.getPackage().getImplementationVersion();
+        StringBuilder fingerprint = new StringBuilder("compiler=").append(COMPILER_VERSION);
+        if (version != null) {
+            fingerprint.append('/').append(version);
+        }
+        if (mode == Mode.EVALUATE) {
+            for (String property : List.of(ExecutionBudget.MAX_STEPS_PROPERTY, ExecutionBudget.TIMEOUT_MILLIS_PROPERTY,
+                    ExecutionBudget.MAX_LIST_SIZE_PROPERTY, ExecutionBudget.MAX_CALL_DEPTH_PROPERTY)) {
+                fingerprint.append(' ').append(property).append('=').append(System.getProperty(property, ""));
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    private String keyPrefix() {
+        return mode.name().toLowerCase();
+    }
+
+    public Result run(List<Path> roots) throws IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        List<Source> sources = findSources(roots);
+        Result result = new Result();
+        ExecutorService executor = Executors.newFixedThreadPool(jobs, runnable -> {
+            Thread thread = new Thread(runnable, "catscript-build");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Outcome>> outcomes = new ArrayList<>();
+            for (Source source : sources) {
+                outcomes.add(executor.submit(() -> build(source)));
+            }
+            for (Future<Outcome> outcome : outcomes) {
+                try {
+                    result.count(outcome.get());
+                } catch (ExecutionException e) {
+                    // build() reports its own failures, anything else is a bug
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        cache.save();
+        result.millis = (System.nanoTime() - startNanos) / 1_000_000;
+        return result;
+    }
+
+    // builds once, then again whenever a source under one of the roots changes; only
+    // returns when interrupted
+    public void watch(List<Path> roots, Consumer<Result> onBuild) throws IOException, InterruptedException {
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            for (Path root : roots) {
+                register(watcher, Files.isDirectory(root) ? root : root.toAbsolutePath().getParent());
+            }
+            onBuild.accept(run(roots));
+            while (true) {
+                boolean changed = drain(watcher, watcher.take());
+                // editors save in several steps, let the burst settle before rebuilding
+                WatchKey more;
+                while ((more = watcher.poll(WATCH_SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(watcher, more);
+                }
+                if (changed) {
+                    onBuild.accept(run(roots));
+                }
+            }
+        }
+    }
+
+    private boolean drain(WatchService watcher, WatchKey key) throws IOException {
+        boolean changed = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                register(watcher, path);
+                changed = true;
+            } else if (path.getFileName().toString().endsWith(SOURCE_EXTENSION)) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void register(WatchService watcher, Path root) throws IOException {
+        try (Stream<Path> directories = Files.walk(root)) {
+            for (Path directory : directories.filter(Files::isDirectory).collect(Collectors.toList())) {
+                if (!directory.toAbsolutePath().normalize().startsWith(outputDirectory)) {
+                    directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                }
+            }
+        }
+    }
+
+    private List<Source> findSources(List<Path> roots) throws IOException {
+        List<Source> sources = new ArrayList<>();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                try (Stream<Path> files = Files.walk(root)) {
+                    for (Path file : files.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                        if (file.getFileName().toString().endsWith(SOURCE_EXTENSION) &&
+                                !file.toAbsolutePath().normalize().startsWith(outputDirectory)) {
+                            sources.add(new Source(file, root.relativize(file)));
+                        }
+                    }
+                }
+            } else {
+                sources.add(new Source(root, root.getFileName()));
+            }
+        }
+        return sources;
+    }
+
+    private enum Outcome {
+        BUILT, SKIPPED, FAILED
+    }
+
+    private Outcome build(Source source) {
+        String key = keyPrefix() + " " + source.relativeName;
+        Path output = outputFor(source);
+        try {
+            byte[] bytes = Files.readAllBytes(source.file);
+            String hash = Hashes.sha256(bytes);
+            if (cache.isUpToDate(key, hash) && Files.exists(output)) {
+                return Outcome.SKIPPED;
+            }
+            cache.forget(key);
+            CatScriptProgram program = ParserPool.parse(new String(bytes, StandardCharsets.UTF_8));
+            program.verify();
+            program.optimize();
+            Files.createDirectories(output.getParent());
+            write(program, source, output);
+            cache.record(key, hash);
+            return Outcome.BUILT;
+        } catch (ParseErrorException e) {
+            Diagnostic.fromParseErrors(source.displayName, e.getErrors()).forEach(diagnostics);
+        } catch (BudgetExceededException e) {
+            diagnostics.accept(Diagnostic.fromException(source.displayName, "BUDGET_EXCEEDED", e));
+        } catch (IOException e) {
+            diagnostics.accept(Diagnostic.fromException(source.displayName, "IO_ERROR", e));
+        } catch (RuntimeException e) {
+            diagnostics.accept(Diagnostic.fromException(source.displayName, "RUNTIME_ERROR", e));
+        }
+        try {
+            // a half written output must not pass for a good one next time, and neither may
+            // the source map of the previous good one
+            Files.deleteIfExists(output);
+            if (mode == Mode.TRANSPILE) {
+                Files.deleteIfExists(sourceMapFor(output));
+            }
+        } catch (IOException ignored) {
+        }
+        return Outcome.FAILED;
+    }
+
+    private void write(CatScriptProgram program, Source source, Path output) throws IOException {
+        switch (mode) {
+            case COMPILE:
+                byte[] classBytes = new ByteCodeGenerator(program).setClassName(classNameFor(source))
+                        .setSourceName(source.file.getFileName().toString()).generateClass();
+                Files.write(output, classBytes);
+                break;
+            case TRANSPILE:
+                Path mapFile = sourceMapFor(output);
+                String sourcePath = output.getParent().relativize(source.file.toAbsolutePath().normalize())
+                        .toString().replace('\\', '/');
+                String sourceMap;
+                try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                    sourceMap = JSTranspiler.transpile(program, writer, sourcePath, output.getFileName().toString());
+                    writer.write("//# sourceMappingURL=" + mapFile.getFileName() + "\n");
+                }
+                Files.writeString(mapFile, sourceMap, StandardCharsets.UTF_8);
+                break;
+            case EVALUATE:
+                try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                    ExecutionContext context = new ExecutionContext(writer, ExecutionBudget.fromSystemProperties());
+                    program.setContext(context);
+                    Metrics.measure(Metrics.Phase.EXECUTE, () -> program.execute());
+                }
+                break;
+        }
+    }
+
+    private static Path sourceMapFor(Path output) {
+        return output.resolveSibling(output.getFileName() + ".map");
+    }
+
+    Path outputFor(Source source) {
+        if (mode == Mode.COMPILE) {
+            return outputDirectory.resolve(classNameFor(source) + mode.extension);
+        }
+        return outputDirectory.resolve(source.baseName + mode.extension);
+    }
+
+    // catscript/<path>/<name>, with anything that isn't a Java identifier character replaced
+    static String classNameFor(Source source) {
+        StringBuilder name = new StringBuilder("catscript");
+        for (String segment : source.baseName.split("/")) {
+            name.append('/');
+            if (segment.isEmpty() || !Character.isJavaIdentifierStart(segment.charAt(0))) {
+                name.append('_');
+            }
+            for (int i = 0; i < segment.length(); i++) {
+                char c = segment.charAt(i);
+                name.append(Character.isJavaIdentifierPart(c) ? c : '_');
+            }
+        }
+        return name.toString();
+    }
+
+    static class Source {
+        private final Path file;
+        private final String relativeName;
+        private final String baseName;
+        private final String displayName;
+
+        Source(Path file, Path relative) {
+            this.file = file;
+            this.relativeName = relative.toString().replace('\\', '/');
+            this.baseName = relativeName.endsWith(SOURCE_EXTENSION) ?
+                    relativeName.substring(0, relativeName.length() - SOURCE_EXTENSION.length()) : relativeName;
+            this.displayName = file.toString();
+        }
+    }
+
+    public static class Result {
+        private int built;
+        private int skipped;
+        private int failed;
+        private long millis;
+
+        private void count(Outcome outcome) {
+            switch (outcome) {
+                case BUILT: built++; break;
+                case SKIPPED: skipped++; break;
+                case FAILED: failed++; break;
+            }
+        }
+
+        public int getBuilt() {
+            return built;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public String toJson() {
+            return "{\"event\":\"summary\",\"built\":" + built + ",\"skipped\":" + skipped +
+                    ",\"failed\":" + failed + ",\"millis\":" + millis + "}";
+        }
+
+        @Override
+        public String toString() {
+            return "built " + built + ", skipped " + skipped + ", failed " + failed + " in " + millis + " ms";
+        }
+    }
+}
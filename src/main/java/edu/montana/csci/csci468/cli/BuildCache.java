@@ -0,0 +1,97 @@
+package edu.montana.csci.csci468.cli;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Content hashes of the sources behind the last successful build of each output, stored as
+// "<hash> <key>" lines next to the outputs.  A file whose hash matches and whose output is
+// still there doesn't need to be built again.  Each mode also records a "#<mode> <fingerprint>"
+// line describing the compiler and settings that produced its outputs; keys are
+// "<mode> <file>", and a mode whose fingerprint changed loses all of its entries.
+public class BuildCache {
+
+    private static final String FINGERPRINT_PREFIX = "#";
+
+    private final Path file;
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+    private BuildCache(Path file) {
+        this.file = file;
+    }
+
+    public static BuildCache load(Path file) throws IOException {
+        BuildCache cache = new BuildCache(file);
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int space = line.indexOf(' ');
+                if (space <= 0) {
+                    continue;
+                }
+                if (line.startsWith(FINGERPRINT_PREFIX)) {
+                    cache.fingerprints.put(line.substring(FINGERPRINT_PREFIX.length(), space), line.substring(space + 1));
+                } else {
+                    cache.hashes.put(line.substring(space + 1), line.substring(0, space));
+                }
+            }
+        }
+        return cache;
+    }
+
+    // forgets every file, for --force
+    public void clear() {
+        hashes.clear();
+    }
+
+    // drops the mode's entries if they were built by a different compiler or configuration
+    public void useFingerprint(String mode, String fingerprint) {
+        if (!fingerprint.equals(fingerprints.put(mode, fingerprint))) {
+            hashes.keySet().removeIf(key -> key.startsWith(mode + " "));
+        }
+    }
+
+    public boolean isUpToDate(String key, String hash) {
+        return hash.equals(hashes.get(key));
+    }
+
+    public void record(String key, String hash) {
+        hashes.put(key, hash);
+    }
+
+    public void forget(String key) {
+        hashes.remove(key);
+    }
+
+    public int size() {
+        return hashes.size();
+    }
+
+    public void save() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : new TreeMap<>(fingerprints).entrySet()) {
+                writer.write(FINGERPRINT_PREFIX + entry.getKey());
+                writer.write(' ');
+                writer.write(entry.getValue());
+                writer.write('\n');
+            }
+            for (Map.Entry<String, String> entry : new TreeMap<>(hashes).entrySet()) {
+                writer.write(entry.getValue());
+                writer.write(' ');
+                writer.write(entry.getKey());
+                writer.write('\n');
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
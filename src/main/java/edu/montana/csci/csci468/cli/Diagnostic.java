@@ -0,0 +1,92 @@
+package edu.montana.csci.csci468.cli;
+
+import edu.montana.csci.csci468.parser.ParseError;
+import edu.montana.csci.csci468.util.Json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One problem found while building a file.  Line and column are 1-based and 0 when there
+// is no position, e.g. for runtime and I/O failures.
+public class Diagnostic {
+
+    public enum Severity {
+        ERROR, WARNING
+    }
+
+    private final String file;
+    private final int line;
+    private final int column;
+    private final Severity severity;
+    private final String code;
+    private final String message;
+
+    public Diagnostic(String file, int line, int column, Severity severity, String code, String message) {
+        this.file = file;
+        this.line = line;
+        this.column = column;
+        this.severity = severity;
+        this.code = code;
+        this.message = message;
+    }
+
+    public static List<Diagnostic> fromParseErrors(String file, List<ParseError> errors) {
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        for (ParseError error : errors) {
+            int line = error.getLocation() == null ? 0 : error.getLocation().getLine();
+            int column = error.getLocation() == null ? 0 : error.getLocation().getColumn() + 1;
+            diagnostics.add(new Diagnostic(file, line, column, Severity.ERROR,
+                    error.getErrorType().name(), error.getMessage()));
+        }
+        return diagnostics;
+    }
+
+    public static Diagnostic fromException(String file, String code, Throwable error) {
+        return new Diagnostic(file, 0, 0, Severity.ERROR, code,
+                error.getMessage() == null ? error.getClass().getName() : error.getMessage());
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String toJson() {
+        return "{\"event\":\"diagnostic\",\"file\":" + Json.quote(file) + ",\"line\":" + line + ",\"column\":" + column +
+                ",\"severity\":\"" + severity.name().toLowerCase() + "\",\"code\":" + Json.quote(code) +
+                ",\"message\":" + Json.quote(message) + "}";
+    }
+
+    // the usual file:line:column: severity: message layout that editors and CI logs understand
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(file);
+        if (line > 0) {
+            text.append(':').append(line);
+            if (column > 0) {
+                text.append(':').append(column);
+            }
+        }
+        return text.append(": ").append(severity.name().toLowerCase()).append(": ").append(message)
+                .append(" [").append(code).append(']').toString();
+    }
+}
@@ -0,0 +1,25 @@
+package edu.montana.csci.csci468.eval;
+
+public class BudgetExceededException extends RuntimeException {
+
+    public enum Kind {
+        STEPS, TIME, LIST_SIZE, CALL_DEPTH
+    }
+
+    private final Kind kind;
+    private final long limit;
+
+    public BudgetExceededException(Kind kind, long limit) {
+        super("Script exceeded its " + kind.name().toLowerCase().replace('_', ' ') + " budget of " + limit);
+        this.kind = kind;
+        this.limit = limit;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+}
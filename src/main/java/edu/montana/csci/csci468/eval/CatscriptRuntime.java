@@ -1,5 +1,11 @@
 package edu.montana.csci.csci468.eval;
 
+import edu.montana.csci.csci468.bytecode.CompiledProgram;
+import edu.montana.csci.csci468.bytecode.TieredCompiler;
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.tokenizer.Token;
+
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -8,14 +14,69 @@ import java.util.Map;
 // TODO - implement proper scoping
 public class CatscriptRuntime {
     LinkedList<Map<String, Object>> scopes = new LinkedList<>();
+    private final TieredCompiler tieredCompiler;
+    private final ExecutionBudget budget;
+    private SampledStack sampledStack;
+    private final Map<CompiledProgram, CatScriptProgram> compiledInstances = new HashMap<>();
 
     public CatscriptRuntime(){
+        this(null);
+    }
+
+    public CatscriptRuntime(TieredCompiler tieredCompiler){
+        this(tieredCompiler, ExecutionBudget.unlimited());
+    }
+
+    public CatscriptRuntime(TieredCompiler tieredCompiler, ExecutionBudget budget){
+        this.tieredCompiler = tieredCompiler;
+        this.budget = budget;
         HashMap<String, Object> globalScope = new HashMap<>();
         scopes.push(globalScope);
     }
 
+    public TieredCompiler getTieredCompiler() {
+        return tieredCompiler;
+    }
+
+    public ExecutionBudget getBudget() {
+        return budget;
+    }
+
+    // the instance tier-compiled functions of the class run on during this run, printing to
+    // and checking the budget of the given context
+    public CatScriptProgram getCompiledInstance(CompiledProgram compiledProgram, ExecutionContext context) {
+        CatScriptProgram instance = compiledInstances.get(compiledProgram);
+        if (instance == null) {
+            instance = compiledProgram.newInstance();
+            compiledInstances.put(compiledProgram, instance);
+        }
+        if (instance.getContext() != context) {
+            instance.setContext(context);
+        }
+        return instance;
+    }
+
+    // null unless a ScriptProfiler is sampling this run
+    public SampledStack getSampledStack() {
+        return sampledStack;
+    }
+
+    public void setSampledStack(SampledStack sampledStack) {
+        this.sampledStack = sampledStack;
+    }
+
+    // statements call this as they start, so a profiler can tell which line is running
+    public void atLine(ParseElement element) {
+        if (sampledStack != null) {
+            Token start = element.getStart();
+            if (start != null) {
+                sampledStack.setLine(start.getLine());
+            }
+        }
+    }
+
     public Object getValue(String name) {
-        Iterator<Map<String, Object>> mapIterator = scopes.descendingIterator();
+        Iterator<Map<String, Object>> mapIterator = scopes.iterator();
         while (mapIterator.hasNext()) {
             Map<String, Object> scope = mapIterator.next();
             if (scope.containsKey(name)) {
@@ -35,6 +96,10 @@ public class CatscriptRuntime {
         scopes.peekLast().put(variableName, val);
     }
 
+    public void defineValue(String variableName, Object val) {
+        scopes.peek().put(variableName, val);
+    }
+
     public void pushScope() {
         scopes.push(new HashMap<>());
     }
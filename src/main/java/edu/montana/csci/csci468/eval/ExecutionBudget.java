@@ -0,0 +1,96 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.eval.BudgetExceededException.Kind;
+
+import java.util.concurrent.CancellationException;
+
+// Resource limits for one execution of a script.  Both the interpreter and compiled code
+// count a step at every loop back-edge and every function call, which is enough to catch
+// runaway scripts without a check per statement.  The wall clock is only read every
+// DEADLINE_CHECK_INTERVAL steps, and the clock starts when the budget is created.  The
+// running thread's interrupt flag is checked at the same points, so a script whose caller
+// gave up (ScriptExecutor cancels timed out jobs) stops with a CancellationException
+// instead of running on.
+public class ExecutionBudget {
+
+    public static final String MAX_STEPS_PROPERTY = "catscript.budget.maxSteps";
+    public static final String TIMEOUT_MILLIS_PROPERTY = "catscript.budget.timeoutMillis";
+    public static final String MAX_LIST_SIZE_PROPERTY = "catscript.budget.maxListSize";
+    public static final String MAX_CALL_DEPTH_PROPERTY = "catscript.budget.maxCallDepth";
+
+    static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private final long maxSteps;
+    private final long timeoutMillis;
+    private final long timeoutNanos;
+    private final long startNanos = System.nanoTime();
+    private final int maxListSize;
+    private final int maxCallDepth;
+
+    private long steps;
+    private int callDepth;
+
+    public ExecutionBudget(long maxSteps, long timeoutMillis, int maxListSize, int maxCallDepth) {
+        this.maxSteps = maxSteps;
+        this.timeoutMillis = timeoutMillis;
+        this.maxListSize = maxListSize;
+        this.maxCallDepth = maxCallDepth;
+        this.timeoutNanos = timeoutMillis >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE : timeoutMillis * 1_000_000;
+    }
+
+    public static ExecutionBudget unlimited() {
+        return new ExecutionBudget(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    public static ExecutionBudget fromSystemProperties() {
+        return fromSystemProperties(Long.MAX_VALUE);
+    }
+
+    // the configured limits, with the timeout capped for callers that can't wait forever
+    public static ExecutionBudget fromSystemProperties(long maxTimeoutMillis) {
+        return new ExecutionBudget(Long.getLong(MAX_STEPS_PROPERTY, Long.MAX_VALUE),
+                Math.min(Long.getLong(TIMEOUT_MILLIS_PROPERTY, Long.MAX_VALUE), maxTimeoutMillis),
+                Integer.getInteger(MAX_LIST_SIZE_PROPERTY, Integer.MAX_VALUE),
+                Integer.getInteger(MAX_CALL_DEPTH_PROPERTY, Integer.MAX_VALUE));
+    }
+
+    public void step() {
+        if (++steps > maxSteps) {
+            throw new BudgetExceededException(Kind.STEPS, maxSteps);
+        }
+        if (steps % DEADLINE_CHECK_INTERVAL == 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Script was cancelled after " + steps + " steps");
+            }
+            if (System.nanoTime() - startNanos > timeoutNanos) {
+                throw new BudgetExceededException(Kind.TIME, timeoutMillis);
+            }
+        }
+    }
+
+    public void enterCall() {
+        if (++callDepth > maxCallDepth) {
+            callDepth--;
+            throw new BudgetExceededException(Kind.CALL_DEPTH, maxCallDepth);
+        }
+        step();
+    }
+
+    public void exitCall() {
+        callDepth--;
+    }
+
+    public void checkListSize(int size) {
+        if (size > maxListSize) {
+            throw new BudgetExceededException(Kind.LIST_SIZE, maxListSize);
+        }
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public int getCallDepth() {
+        return callDepth;
+    }
+}
@@ -0,0 +1,69 @@
+package edu.montana.csci.csci468.eval;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+// Everything one run of a program writes to or is limited by.  Compiled program classes
+// hold no mutable state of their own beyond their globals, so a single loaded class can
+// run concurrently as long as each run gets a fresh instance and its own context.
+public class ExecutionContext {
+
+    private final StringBuffer output = new StringBuffer();
+    private final Writer outputWriter;
+    private final ExecutionBudget budget;
+    private long outputLength;
+
+    public ExecutionContext() {
+        this(null, ExecutionBudget.unlimited());
+    }
+
+    // with a writer, print output is streamed to it instead of being buffered
+    public ExecutionContext(Writer outputWriter, ExecutionBudget budget) {
+        this.outputWriter = outputWriter;
+        this.budget = budget;
+    }
+
+    public void print(Object v) {
+        String text = String.valueOf(v);
+        outputLength += text.length() + 1;
+        if (outputWriter != null) {
+            try {
+                outputWriter.write(text);
+                outputWriter.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            output.append(text).append("\n");
+        }
+    }
+
+    // only output that was buffered, anything sent to an output writer is not kept
+    public String getOutput() {
+        return output.toString();
+    }
+
+    // characters printed so far, whether buffered or streamed
+    public long getOutputLength() {
+        return outputLength;
+    }
+
+    public void flushOutput() {
+        if (outputWriter != null) {
+            try {
+                outputWriter.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public Writer getOutputWriter() {
+        return outputWriter;
+    }
+
+    public ExecutionBudget getBudget() {
+        return budget;
+    }
+}
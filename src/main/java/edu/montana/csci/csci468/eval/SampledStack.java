@@ -0,0 +1,57 @@
+package edu.montana.csci.csci468.eval;
+
+// The interpreter's CatScript level call stack, kept up to date while a ScriptProfiler is
+// attached to the runtime: one frame per function being run, each with the line of the
+// statement it is on.  Written by the running thread and read by the sampler without
+// locking, so a sample taken mid-call can be slightly off; that's fine for a profile.
+// Frames past MAX_DEPTH are counted but not recorded.
+public class SampledStack {
+
+    public static final String TOP_LEVEL = "main";
+    static final int MAX_DEPTH = 1024;
+
+    private final String[] names = new String[MAX_DEPTH];
+    private final int[] lines = new int[MAX_DEPTH];
+    private volatile int depth;
+
+    public SampledStack(int line) {
+        push(TOP_LEVEL, line);
+    }
+
+    public void push(String name, int line) {
+        int top = depth;
+        if (top < MAX_DEPTH) {
+            names[top] = name;
+            lines[top] = line;
+        }
+        depth = top + 1;
+    }
+
+    public void pop() {
+        depth = depth - 1;
+    }
+
+    public void setLine(int line) {
+        int top = depth - 1;
+        if (top < MAX_DEPTH) {
+            lines[top] = line;
+        }
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // "main:12;fib:3;fib:4", outermost frame first
+    public String snapshot() {
+        int top = Math.min(depth, MAX_DEPTH);
+        StringBuilder frames = new StringBuilder();
+        for (int i = 0; i < top; i++) {
+            if (i > 0) {
+                frames.append(';');
+            }
+            frames.append(names[i]).append(':').append(lines[i]);
+        }
+        return frames.toString();
+    }
+}
@@ -0,0 +1,151 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.bytecode.CompiledProgram;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Sampling profiler that reports CatScript functions and lines instead of Java frames.  The
+// program runs on the calling thread while a sampler thread looks at it every interval:
+// interpreted programs through the runtime's SampledStack, compiled ones through the Java
+// stack, keeping only frames of the program class and reading lines from its line number
+// table.  Both give the same frame names (function:line, with the top level as main), so
+// profiles of the two backends can be compared.  Results come out as collapsed stacks,
+// one "main:12;fib:3 42" line per distinct stack, ready for flamegraph.pl or speedscope.
+public class ScriptProfiler {
+
+    public static final long DEFAULT_INTERVAL_MICROS = 1000;
+
+    private final long intervalNanos;
+
+    public ScriptProfiler() {
+        this(DEFAULT_INTERVAL_MICROS);
+    }
+
+    public ScriptProfiler(long intervalMicros) {
+        this.intervalNanos = Math.max(1, intervalMicros) * 1000;
+    }
+
+    // runs a verified program in the interpreter
+    public Profile interpret(CatScriptProgram program, ExecutionContext context) {
+        SampledStack stack = new SampledStack(program.getStart() == null ? 0 : program.getStart().getLine());
+        CatscriptRuntime runtime = new CatscriptRuntime(null, context.getBudget());
+        runtime.setSampledStack(stack);
+        program.setContext(context);
+        return sample(() -> program.execute(runtime), stack::snapshot);
+    }
+
+    public Profile run(CompiledProgram program, ExecutionContext context) {
+        Thread thread = Thread.currentThread();
+        String programClass = program.getProgramClass().getName();
+        return sample(() -> program.execute(context), () -> collapse(thread.getStackTrace(), programClass));
+    }
+
+    private Profile sample(Runnable work, Supplier<String> snapshot) {
+        Profile profile = new Profile();
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(intervalNanos);
+                String stack = snapshot.get();
+                if (stack != null) {
+                    profile.stacks.merge(stack, 1L, Long::sum);
+                }
+            }
+        }, "catscript-profiler");
+        sampler.setDaemon(true);
+        long startNanos = System.nanoTime();
+        sampler.start();
+        try {
+            work.run();
+        } finally {
+            sampler.interrupt();
+            try {
+                sampler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            profile.nanos = System.nanoTime() - startNanos;
+        }
+        return profile;
+    }
+
+    // the program's frames of a Java stack, outermost first; null when none are running yet
+    static String collapse(StackTraceElement[] trace, String programClass) {
+        StringBuilder frames = new StringBuilder();
+        for (int i = trace.length - 1; i >= 0; i--) {
+            StackTraceElement element = trace[i];
+            if (element.getClassName().equals(programClass)) {
+                if (frames.length() > 0) {
+                    frames.append(';');
+                }
+                String method = element.getMethodName();
+                frames.append(method.equals("execute") ? SampledStack.TOP_LEVEL : method)
+                        .append(':').append(Math.max(0, element.getLineNumber()));
+            }
+        }
+        return frames.length() == 0 ? null : frames.toString();
+    }
+
+    public static class Profile {
+        private final Map<String, Long> stacks = new HashMap<>();
+        private long nanos;
+
+        public long getSamples() {
+            long samples = 0;
+            for (long count : stacks.values()) {
+                samples += count;
+            }
+            return samples;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public Map<String, Long> getStacks() {
+            return stacks;
+        }
+
+        // samples per function:line where that line was the one running
+        public Map<String, Long> getSelfSamples() {
+            Map<String, Long> self = new HashMap<>();
+            for (Map.Entry<String, Long> stack : stacks.entrySet()) {
+                String frames = stack.getKey();
+                self.merge(frames.substring(frames.lastIndexOf(';') + 1), stack.getValue(), Long::sum);
+            }
+            return self;
+        }
+
+        // collapsed stack format, most sampled stacks first
+        public String toCollapsed() {
+            StringBuilder collapsed = new StringBuilder();
+            for (Map.Entry<String, Long> stack : sorted(stacks)) {
+                collapsed.append(stack.getKey()).append(' ').append(stack.getValue()).append('\n');
+            }
+            return collapsed.toString();
+        }
+
+        // the hottest lines with their share of the samples
+        @Override
+        public String toString() {
+            long samples = getSamples();
+            StringBuilder text = new StringBuilder().append(samples).append(" samples in ")
+                    .append(nanos / 1_000_000).append(" ms\n");
+            for (Map.Entry<String, Long> line : sorted(getSelfSamples())) {
+                text.append(String.format("%6.1f%%  %s%n", 100.0 * line.getValue() / samples, line.getKey()));
+            }
+            return text.toString();
+        }
+
+        private static List<Map.Entry<String, Long>> sorted(Map<String, Long> counts) {
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+            entries.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+            return entries;
+        }
+    }
+}
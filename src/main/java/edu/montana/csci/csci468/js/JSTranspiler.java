@@ -1,43 +1,49 @@
 package edu.montana.csci.csci468.js;
 
 import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.util.Metrics;
 
-import javax.script.ScriptContext;
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
-import java.io.StringWriter;
 
 public class JSTranspiler {
 
+    public static final String DEFAULT_SOURCE_NAME = "program.cat";
+    public static final String DEFAULT_GENERATED_NAME = "program.js";
+
     private final CatScriptProgram program;
     private final String javascriptSource;
+    private final String sourceMap;
 
     public JSTranspiler(CatScriptProgram program) {
         this.program = program;
-        this.javascriptSource = transpile(program);
+        StringBuilder javascript = new StringBuilder();
+        this.sourceMap = transpile(program, javascript, DEFAULT_SOURCE_NAME, DEFAULT_GENERATED_NAME);
+        this.javascriptSource = javascript.toString();
+    }
+
+    // streams the JavaScript for the program to out and returns its source map
+    public static String transpile(CatScriptProgram program, Appendable out, String sourceName, String generatedName) {
+        return Metrics.measure(Metrics.Phase.TRANSPILE, () -> {
+            JavaScriptEmitter javascript = new JavaScriptEmitter(out, sourceName);
+            program.transpile(javascript);
+            javascript.finish();
+            return javascript.getSourceMap(generatedName);
+        });
     }
 
     public String evaluate() {
         try {
-            ScriptEngine engine = new ScriptEngineManager().getEngineByName("javascript");
-            ScriptContext context = engine.getContext();
-            StringWriter writer = new StringWriter();
-            context.setWriter(writer);
-            engine.eval(javascriptSource);
-            return writer.toString();
+            return ScriptEnginePool.getDefault().evaluate(javascriptSource);
         } catch (ScriptException e) {
             return e.getMessage();
         }
     }
 
-    private String transpile(CatScriptProgram program) {
-        StringBuilder sb = new StringBuilder();
-        program.transpile(sb);
-        return sb.toString();
-    }
-
     public String getJavascriptSource() {
         return javascriptSource;
     }
+
+    public String getSourceMap() {
+        return sourceMap;
+    }
 }
@@ -0,0 +1,236 @@
+package edu.montana.csci.csci468.js;
+
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.statements.Statement;
+import edu.montana.csci.csci468.tokenizer.Token;
+import edu.montana.csci.csci468.util.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Streams generated JavaScript to an Appendable, the transpiler's counterpart to the
+// ByteCodeGenerator.  It keeps track of the output line and column so that statements
+// and calls can be mapped back to the CatScript tokens they came from; the mappings are
+// VLQ-encoded as they are recorded, so a source map is available once the program has
+// been written without the generated code ever being held in memory.
+public class JavaScriptEmitter {
+
+    private static final String INDENT = "    ";
+    private static final String BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    // names a CatScript program may use that mean something else in JavaScript
+    private static final Set<String> RESERVED = Set.of("break", "case", "catch", "class", "const", "continue",
+            "debugger", "default", "delete", "do", "else", "enum", "export", "extends", "false", "finally", "for",
+            "function", "if", "implements", "import", "in", "instanceof", "interface", "let", "new", "null",
+            "package", "private", "protected", "public", "return", "static", "super", "switch", "this", "throw",
+            "true", "try", "typeof", "var", "void", "while", "with", "yield", "await", "arguments", "eval",
+            "undefined", "NaN", "Infinity", "Math", "print");
+
+    // 32 bit multiply for engines that predate Math.imul; declared at the end and hoisted
+    private static final String IMUL_HELPER = "function $imul(a, b) {\n" +
+            INDENT + "if (Math.imul) {\n" +
+            INDENT + INDENT + "return Math.imul(a, b);\n" +
+            INDENT + "}\n" +
+            INDENT + "var ah = (a >>> 16) & 0xffff, al = a & 0xffff;\n" +
+            INDENT + "var bh = (b >>> 16) & 0xffff, bl = b & 0xffff;\n" +
+            INDENT + "return ((al * bl) + (((ah * bl + al * bh) << 16) >>> 0) | 0);\n" +
+            "}\n";
+
+    // integer division throws on a zero divisor, as the JVM and the interpreter do, rather
+    // than coercing Infinity or NaN to 0
+    private static final String DIV_HELPER = "function $div(a, b) {\n" +
+            INDENT + "if (b === 0) {\n" +
+            INDENT + INDENT + "throw new Error(\"/ by zero\");\n" +
+            INDENT + "}\n" +
+            INDENT + "return (a / b) | 0;\n" +
+            "}\n";
+
+    // == compares values everywhere else, which for lists means element by element
+    private static final String EQUALS_HELPER = "function $equals(a, b) {\n" +
+            INDENT + "if (a === b) {\n" +
+            INDENT + INDENT + "return true;\n" +
+            INDENT + "}\n" +
+            INDENT + "if (!Array.isArray(a) || !Array.isArray(b) || a.length !== b.length) {\n" +
+            INDENT + INDENT + "return false;\n" +
+            INDENT + "}\n" +
+            INDENT + "for (var i = 0; i < a.length; i++) {\n" +
+            INDENT + INDENT + "if (!$equals(a[i], b[i])) {\n" +
+            INDENT + INDENT + INDENT + "return false;\n" +
+            INDENT + INDENT + "}\n" +
+            INDENT + "}\n" +
+            INDENT + "return true;\n" +
+            "}\n";
+
+    private final Appendable out;
+    private final String sourceName;
+    private final Set<String> helpers = new LinkedHashSet<>();
+    private int indentation;
+    private int temporaries;
+
+    private int line;
+    private int column;
+
+    private final StringBuilder mappings = new StringBuilder();
+    private int mappedLine;
+    private int lastGeneratedColumn;
+    private int lastSourceLine;
+    private int lastSourceColumn;
+    private boolean lineHasMapping;
+    private int lastMarkLine = -1;
+    private int lastMarkColumn = -1;
+
+    public JavaScriptEmitter(Appendable out, String sourceName) {
+        this.out = out;
+        this.sourceName = sourceName;
+    }
+
+    public JavaScriptEmitter append(String text) {
+        try {
+            out.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int newline = text.lastIndexOf('\n');
+        if (newline < 0) {
+            column += text.length();
+        } else {
+            for (int i = 0; i <= newline; i++) {
+                if (text.charAt(i) == '\n') {
+                    line++;
+                }
+            }
+            column = text.length() - newline - 1;
+        }
+        return this;
+    }
+
+    public JavaScriptEmitter append(int value) {
+        return append(String.valueOf(value));
+    }
+
+    public JavaScriptEmitter appendIdentifier(String name) {
+        return append(RESERVED.contains(name) ? "$" + name : name);
+    }
+
+    // JSON strings are JavaScript strings, apart from the two line separators ES5 rejects
+    public JavaScriptEmitter appendString(String value) {
+        return append(Json.quote(value).replace("\u2028", "\\u2028").replace("\u2029", "\\u2029"));
+    }
+
+    // starts a new line for the given statement and maps it back to the statement's source
+    public JavaScriptEmitter startStatement(Statement statement) {
+        appendIndentation();
+        return mark(statement);
+    }
+
+    public JavaScriptEmitter endStatement() {
+        return append(";\n");
+    }
+
+    // writes a braced, indented block; the caller has already written whatever precedes it
+    public JavaScriptEmitter block(List<Statement> statements) {
+        openBlock();
+        for (Statement statement : statements) {
+            statement.transpile(this);
+        }
+        return closeBlock();
+    }
+
+    public JavaScriptEmitter openBlock() {
+        indentation++;
+        return append("{\n");
+    }
+
+    public JavaScriptEmitter closeBlock() {
+        indentation--;
+        return appendIndentation().append("}");
+    }
+
+    public JavaScriptEmitter appendIndentation() {
+        return append(INDENT.repeat(indentation));
+    }
+
+    // CatScript identifiers can't contain '$', so these never collide with program names
+    public String newTemporary(String hint) {
+        return "$" + hint + temporaries++;
+    }
+
+    public JavaScriptEmitter useMultiplyHelper() {
+        helpers.add(IMUL_HELPER);
+        return append("$imul");
+    }
+
+    public JavaScriptEmitter useDivideHelper() {
+        helpers.add(DIV_HELPER);
+        return append("$div");
+    }
+
+    public JavaScriptEmitter useEqualsHelper() {
+        helpers.add(EQUALS_HELPER);
+        return append("$equals");
+    }
+
+    public JavaScriptEmitter mark(ParseElement element) {
+        Token start = element.getStart();
+        if (start == null || sourceName == null || (line == lastMarkLine && column == lastMarkColumn)) {
+            return this;
+        }
+        lastMarkLine = line;
+        lastMarkColumn = column;
+        while (mappedLine < line) {
+            mappings.append(';');
+            mappedLine++;
+            lastGeneratedColumn = 0;
+            lineHasMapping = false;
+        }
+        if (lineHasMapping) {
+            mappings.append(',');
+        }
+        int sourceLine = start.getLine() - 1;
+        int sourceColumn = start.getColumn();
+        encode(column - lastGeneratedColumn);
+        encode(0);
+        encode(sourceLine - lastSourceLine);
+        encode(sourceColumn - lastSourceColumn);
+        lastGeneratedColumn = column;
+        lastSourceLine = sourceLine;
+        lastSourceColumn = sourceColumn;
+        lineHasMapping = true;
+        return this;
+    }
+
+    // writes any runtime helpers the program used, call once everything else is out
+    public void finish() {
+        for (String helper : helpers) {
+            append(helper);
+        }
+        helpers.clear();
+    }
+
+    public String getSourceMap(String generatedName) {
+        StringBuilder json = new StringBuilder("{\"version\":3");
+        if (generatedName != null) {
+            json.append(",\"file\":").append(Json.quote(generatedName));
+        }
+        json.append(",\"sources\":[").append(Json.quote(sourceName)).append("]");
+        json.append(",\"names\":[]");
+        json.append(",\"mappings\":\"").append(mappings).append("\"}");
+        return json.toString();
+    }
+
+    // base64 VLQ, sign in the lowest bit, five bits per digit
+    private void encode(int value) {
+        int vlq = value < 0 ? ((-value) << 1) | 1 : value << 1;
+        do {
+            int digit = vlq & 0x1F;
+            vlq >>>= 5;
+            if (vlq > 0) {
+                digit |= 0x20;
+            }
+            mappings.append(BASE64.charAt(digit));
+        } while (vlq > 0);
+    }
+}
@@ -0,0 +1,140 @@
+package edu.montana.csci.csci468.js;
+
+import edu.montana.csci.csci468.util.Hashes;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Reuses JavaScript engines across evaluations instead of building a new manager and engine
+// every time.  Engines aren't assumed to be thread safe, so each evaluation borrows one and
+// returns it afterwards; at most `maxIdle` are kept.  Every evaluation runs against a fresh
+// context with its own bindings so nothing leaks from one script to the next.  Engines that
+// implement Compilable keep an LRU of compiled scripts keyed by source hash; compiled scripts
+// belong to the engine that compiled them, so the cache is per engine.
+public class ScriptEnginePool {
+
+    public static final String MAX_IDLE_PROPERTY = "catscript.js.maxIdleEngines";
+    public static final String SCRIPT_CACHE_SIZE_PROPERTY = "catscript.js.scriptCacheSize";
+
+    private static ScriptEnginePool defaultPool;
+
+    private final Supplier<ScriptEngine> factory;
+    private final ArrayBlockingQueue<PooledEngine> idle;
+    private final int scriptCacheSize;
+    private final LongAdder compiles = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+
+    public ScriptEnginePool(Supplier<ScriptEngine> factory, int maxIdle, int scriptCacheSize) {
+        this.factory = factory;
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+        this.scriptCacheSize = scriptCacheSize;
+    }
+
+    public static synchronized ScriptEnginePool getDefault() {
+        if (defaultPool == null) {
+            ScriptEngineManager manager = new ScriptEngineManager();
+            defaultPool = new ScriptEnginePool(() -> manager.getEngineByName("javascript"),
+                    Integer.getInteger(MAX_IDLE_PROPERTY, Runtime.getRuntime().availableProcessors()),
+                    Integer.getInteger(SCRIPT_CACHE_SIZE_PROPERTY, 256));
+        }
+        return defaultPool;
+    }
+
+    // creates and warms up to `count` idle engines ahead of the first request; false if
+    // there's no JavaScript engine on this JVM
+    public boolean prewarm(int count) {
+        for (int i = 0; i < count && idle.remainingCapacity() > 0; i++) {
+            ScriptEngine engine = factory.get();
+            if (engine == null) {
+                return false;
+            }
+            idle.offer(warm(new PooledEngine(engine)));
+        }
+        return true;
+    }
+
+    public String evaluate(String source) throws ScriptException {
+        PooledEngine engine = idle.poll();
+        if (engine == null) {
+            ScriptEngine created = factory.get();
+            if (created == null) {
+                throw new IllegalStateException("No JavaScript engine is available on this JVM");
+            }
+            engine = new PooledEngine(created);
+        }
+        try {
+            return engine.evaluate(source);
+        } finally {
+            idle.offer(engine);
+        }
+    }
+
+    public int getIdle() {
+        return idle.size();
+    }
+
+    public long getCompiles() {
+        return compiles.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    private PooledEngine warm(PooledEngine engine) {
+        try {
+            engine.evaluate("0");
+            return engine;
+        } catch (ScriptException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class PooledEngine {
+        private final ScriptEngine engine;
+        private final Map<String, CompiledScript> scripts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                return size() > scriptCacheSize;
+            }
+        };
+
+        PooledEngine(ScriptEngine engine) {
+            this.engine = engine;
+        }
+
+        String evaluate(String source) throws ScriptException {
+            StringWriter writer = new StringWriter();
+            ScriptContext context = new SimpleScriptContext();
+            context.setBindings(engine.createBindings(), ScriptContext.ENGINE_SCOPE);
+            context.setWriter(writer);
+            context.setErrorWriter(writer);
+            if (engine instanceof Compilable) {
+                String key = Hashes.sha256(source);
+                CompiledScript script = scripts.get(key);
+                if (script == null) {
+                    script = ((Compilable) engine).compile(source);
+                    scripts.put(key, script);
+                    compiles.increment();
+                } else {
+                    cacheHits.increment();
+                }
+                script.eval(context);
+            } else {
+                engine.eval(source, context);
+            }
+            return writer.toString();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
 import edu.montana.csci.csci468.tokenizer.Token;
 import edu.montana.csci.csci468.tokenizer.TokenList;
 import edu.montana.csci.csci468.tokenizer.TokenType;
+import edu.montana.csci.csci468.util.Metrics;
 
 import static edu.montana.csci.csci468.tokenizer.TokenType.*;
 
@@ -18,7 +19,17 @@ public class CatScriptParser {
     private FunctionDefinitionStatement currentFunctionDefinition;
 
     public CatScriptProgram parse(String source) {
-        tokens = new CatScriptTokenizer(source).getTokens();
+        TokenList tokenList = Metrics.measure(Metrics.Phase.TOKENIZE, () -> new CatScriptTokenizer(source).getTokens());
+        Metrics.recordTokenCount(tokenList.size());
+        return parse(tokenList);
+    }
+
+    public CatScriptProgram parse(TokenList tokenList) {
+        return Metrics.measure(Metrics.Phase.PARSE, () -> parseProgram(tokenList));
+    }
+
+    private CatScriptProgram parseProgram(TokenList tokenList) {
+        tokens = tokenList;
 
         // first parse an expression
         CatScriptProgram program = new CatScriptProgram();
@@ -42,6 +53,12 @@ public class CatScriptParser {
         return program;
     }
 
+    // releases the token list and function being parsed so a pooled parser doesn't pin them
+    public void reset() {
+        tokens = null;
+        currentFunctionDefinition = null;
+    }
+
     public CatScriptProgram parseAsExpression(String source) {
         tokens = new CatScriptTokenizer(source).getTokens();
         CatScriptProgram program = new CatScriptProgram();
@@ -80,12 +97,10 @@ public class CatScriptParser {
             {
                 do{
                     Token parameterName = require(IDENTIFIER, def);
-                    TypeLiteral typeLiteral = new TypeLiteral();
-                    typeLiteral.setType(CatscriptType.OBJECT);
+                    TypeLiteral typeLiteral = null;
                     if(tokens.matchAndConsume(COLON))
                     {
                         typeLiteral = parseTypeExpression();
-                        tokens.consumeToken();
                     }
                     def.addParameter(parameterName.getStringValue(), typeLiteral);
                 } while(tokens.matchAndConsume(COMMA) && tokens.hasMoreTokens());
@@ -97,7 +112,6 @@ public class CatScriptParser {
             {
                 tokens.consumeToken();
                 returnType = parseTypeExpression();
-                tokens.consumeToken();
             }
             def.setType(returnType);
 
@@ -109,7 +123,7 @@ public class CatScriptParser {
                 statements.add(parseStatement());
             }
             this.currentFunctionDefinition = null;
-            require(RIGHT_BRACE, def);
+            def.setEnd(require(RIGHT_BRACE, def));
             def.setBody(statements);
             return def;
         }
@@ -120,6 +134,7 @@ public class CatScriptParser {
 
     private TypeLiteral parseTypeExpression() {
         TypeLiteral typeLiteral = new TypeLiteral();
+        typeLiteral.setStart(tokens.getCurrentToken());
 
         if(tokens.match("int"))
         {
@@ -137,15 +152,26 @@ public class CatScriptParser {
         {
             typeLiteral.setType(CatscriptType.OBJECT);
         }
-        else if(tokens.match("<"))
+        else if(tokens.match("list"))
         {
-            typeLiteral.setType(CatscriptType.getListType(parseTypeExpression().getType()));
             tokens.consumeToken();
+            if(tokens.matchAndConsume(LESS))
+            {
+                typeLiteral.setType(CatscriptType.getListType(parseTypeExpression().getType()));
+                typeLiteral.setEnd(require(GREATER, typeLiteral));
+            }
+            else
+            {
+                typeLiteral.setType(CatscriptType.getListType(CatscriptType.OBJECT));
+                typeLiteral.setEnd(tokens.lastToken());
+            }
+            return typeLiteral;
         }
         else
         {
             typeLiteral.setType(CatscriptType.OBJECT);
         }
+        typeLiteral.setEnd(tokens.consumeToken());
         return typeLiteral;
     }
 
@@ -158,10 +184,6 @@ public class CatScriptParser {
         if(stmt != null) {
             return stmt;
         }
-        stmt = parseReturnStatement();
-        if(stmt != null) {
-            return stmt;
-        }
         stmt = parseIfStatement();
         if(stmt != null) {
             return stmt;
@@ -190,9 +212,8 @@ public class CatScriptParser {
         if(tokens.match(IDENTIFIER))
         {
             Token start = tokens.consumeToken();
-            if(tokens.match(EQUAL))
+            if(tokens.matchAndConsume(EQUAL))
             {
-                tokens.consumeToken();
                 final AssignmentStatement assignmentStmt = new AssignmentStatement();
                 assignmentStmt.setStart(start);
                 assignmentStmt.setVariableName(start.getStringValue());
@@ -200,10 +221,11 @@ public class CatScriptParser {
                 assignmentStmt.setEnd(tokens.lastToken());
                 return assignmentStmt;
             }
-            else if(tokens.matchAndConsume(LEFT_PAREN))
+            else if(tokens.match(LEFT_PAREN))
             {
-                return parseFunctionCallStatement(tokens.consumeToken());
+                return parseFunctionCallStatement(start);
             }
+            return new SyntaxErrorStatement(start);
         }
         return null;
     }
@@ -211,6 +233,8 @@ public class CatScriptParser {
     private Statement parseFunctionCallStatement(Token id) {
         FunctionCallExpression fce = parseFunctionCall(id);
         FunctionCallStatement fcs = new FunctionCallStatement(fce);
+        fcs.setStart(fce.getStart());
+        fcs.setEnd(fce.getEnd());
         return fcs;
     }
 
@@ -223,17 +247,14 @@ public class CatScriptParser {
             Token id = require(IDENTIFIER, variableStatement);
             variableStatement.setVariableName(id.getStringValue());
 
-            TypeLiteral returnType = new TypeLiteral();
-            returnType.setType(CatscriptType.OBJECT);
             if(tokens.match(COLON)) 
             {
                 tokens.consumeToken();
-                returnType = parseTypeExpression();
-                tokens.consumeToken();
+                variableStatement.setExplicitType(parseTypeExpression().getType());
             }
-            variableStatement.setExplicitType(returnType.getType());
             require(EQUAL, variableStatement);
             variableStatement.setExpression(parseExpression());
+            variableStatement.setEnd(tokens.lastToken());
             return variableStatement;
         }
         return null;
@@ -254,7 +275,7 @@ public class CatScriptParser {
             {
                 ifstatements.add(parseStatement());
             }
-            require(RIGHT_BRACE, ifStatement);
+            ifStatement.setEnd(require(RIGHT_BRACE, ifStatement));
             ifStatement.setTrueStatements(ifstatements);
 
             if(tokens.match(ELSE))
@@ -270,11 +291,12 @@ public class CatScriptParser {
                         elsestatements.add(parseStatement());
                     }
                     ifStatement.setEnd(require(RIGHT_BRACE, ifStatement));
-                    ifStatement.setTrueStatements(elsestatements);
+                    ifStatement.setElseStatements(elsestatements);
                 }
-                else if(ifelse != null)
+                else
                 {
-                    //ifStatement.setElseStatements(ifelse);
+                    ifStatement.setEnd(ifelse.getEnd());
+                    ifStatement.setElseStatements(List.of(ifelse));
                 }
             }
             return ifStatement;
@@ -321,16 +343,9 @@ public class CatScriptParser {
             if(!tokens.match(RIGHT_BRACE))
             {
                 returnStatement.setExpression(parseExpression());
-                Token end = require(RIGHT_BRACE, returnStatement);
-                returnStatement.setEnd(end);
-                return returnStatement;
-            }
-            else{
-                Token end = require(RIGHT_BRACE, returnStatement);
-                returnStatement.setEnd(end);
-
-                return returnStatement;
             }
+            returnStatement.setEnd(tokens.lastToken());
+            return returnStatement;
 
         } else{
             return null;
@@ -452,8 +467,11 @@ public class CatScriptParser {
             NullLiteralExpression nullExpression = new NullLiteralExpression();
             nullExpression.setToken(nullToken);
             return nullExpression;
-        } else if(tokens.matchAndConsume(LEFT_PAREN)){
+        } else if(tokens.match(LEFT_PAREN)){
+            Token start = tokens.consumeToken();
             ParenthesizedExpression paren = new ParenthesizedExpression(parseExpression());
+            paren.setStart(start);
+            paren.setEnd(require(RIGHT_PAREN, paren));
             return paren;
         } else if(tokens.match(LEFT_BRACKET)){
             return parseListLiteral();
@@ -480,7 +498,8 @@ public class CatScriptParser {
             if(tokens.match(RIGHT_PAREN))
             {
                 FunctionCallExpression functionCall = new FunctionCallExpression(identifier.getStringValue(), fclist);
-                tokens.consumeToken();
+                functionCall.setStart(identifier);
+                functionCall.setEnd(tokens.consumeToken());
                 return functionCall;
             }
             do {
@@ -489,12 +508,15 @@ public class CatScriptParser {
             if(tokens.match(RIGHT_PAREN))
             {
                 FunctionCallExpression functionCall = new FunctionCallExpression(identifier.getStringValue(), fclist);
-                tokens.consumeToken();
+                functionCall.setStart(identifier);
+                functionCall.setEnd(tokens.consumeToken());
                 return functionCall;
             }
             else
             {
                 FunctionCallExpression functionCall = new FunctionCallExpression(identifier.getStringValue(), fclist);
+                functionCall.setStart(identifier);
+                functionCall.setEnd(tokens.lastToken());
                 functionCall.addError(ErrorType.UNTERMINATED_ARG_LIST);
                 return functionCall;
             }
@@ -2,9 +2,11 @@ package edu.montana.csci.csci468.parser;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
 import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
 import edu.montana.csci.csci468.tokenizer.Token;
+import edu.montana.csci.csci468.util.Metrics;
 import org.objectweb.asm.Opcodes;
 
 import java.awt.*;
@@ -86,6 +88,36 @@ public abstract class ParseElement {
         return children;
     }
 
+    // used by the optimizer to swap a child for its folded form
+    protected <T extends ParseElement> T replaceChild(ParseElement oldChild, T newChild) {
+        if (oldChild == newChild) {
+            return newChild;
+        }
+        newChild.parent = this;
+        int index = children.indexOf(oldChild);
+        if (index >= 0) {
+            children.set(index, newChild);
+        } else {
+            children.add(newChild);
+        }
+        return newChild;
+    }
+
+    protected <T extends ParseElement> List<T> replaceChildren(List<T> oldChildren, List<T> newChildren) {
+        int index = oldChildren.isEmpty() ? -1 : children.indexOf(oldChildren.get(0));
+        children.removeAll(oldChildren);
+        if (index < 0 || index > children.size()) {
+            index = children.size();
+        }
+        LinkedList<T> replaced = new LinkedList<>();
+        for (T newChild : newChildren) {
+            newChild.parent = this;
+            children.add(index++, newChild);
+            replaced.add(newChild);
+        }
+        return replaced;
+    }
+
     @Override
     public String toString() {
         return this.getClass().getSimpleName();
@@ -110,27 +142,34 @@ public abstract class ParseElement {
 
 
     public final void verify() {
-        SymbolTable symbolTable = new SymbolTable();
-        registerFunctions(symbolTable);
-        validate(symbolTable);
-
-        final LinkedList<ParseError> collector = new LinkedList<>();
-        collectErrors(collector, this);
-        if (collector.size() > 0) {
-            throw new ParseErrorException(collector);
-        }
+        Metrics.measure(Metrics.Phase.VERIFY, () -> {
+            SymbolTable symbolTable = new SymbolTable();
+            registerFunctions(symbolTable);
+            validate(symbolTable);
+
+            final LinkedList<ParseError> collector = new LinkedList<>();
+            int nodes = collectErrors(collector, this);
+            Metrics.recordNodeCount(nodes);
+            if (collector.size() > 0) {
+                throw new ParseErrorException(collector);
+            }
+            return nodes;
+        });
     }
 
     public abstract void validate(SymbolTable symbolTable);
 
-    private void collectErrors(LinkedList<ParseError> collector, ParseElement parseElement){
+    // returns the number of nodes visited
+    private int collectErrors(LinkedList<ParseError> collector, ParseElement parseElement){
         collector.addAll(parseElement.getErrors());
+        int nodes = 1;
         for (ParseElement child : parseElement.getChildren()) {
-            collectErrors(collector, child);
+            nodes += collectErrors(collector, child);
         }
+        return nodes;
     }
 
-    public void transpile(StringBuilder javascript) {
+    public void transpile(JavaScriptEmitter javascript) {
         throw new UnsupportedOperationException("transpile needs to be implemented for " + this.getClass().getName());
     }
 
@@ -157,7 +196,7 @@ public abstract class ParseElement {
         }
         if (type.equals(CatscriptType.BOOLEAN)) {
             code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(Boolean.class),
-                    "booleanValue", "()Z;");
+                    "booleanValue", "()Z");
         }
     }
 
@@ -22,6 +22,10 @@ public class ParseError {
         return errorType;
     }
 
+    public String getMessage() {
+        return message;
+    }
+
     public String getFullMessage() {
         StringBuilder sb = new StringBuilder();
         String lineStart = "Line " + location.getLine() + ":";
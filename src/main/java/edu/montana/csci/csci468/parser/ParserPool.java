@@ -0,0 +1,87 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import edu.montana.csci.csci468.tokenizer.TokenList;
+import edu.montana.csci.csci468.util.Metrics;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+// Shared tokenizer and parser instances for high request rates.  The token list's backing
+// array survives between sources, so short snippets stop re-growing it from scratch.  Parse
+// trees only hold on to Token objects, never the list, so handing out programs is safe;
+// token lists are only lent for the duration of a callback.  The pool is a bounded queue
+// rather than a ThreadLocal because ScriptExecutor runs every job on a fresh virtual thread,
+// where a per-thread instance would never be used twice.  Callers that find the pool empty
+// get new instances, and instances that tokenized something huge are dropped instead of
+// returned so they don't pin the big array.
+public class ParserPool {
+
+    public static final String SIZE_PROPERTY = "catscript.parser.poolSize";
+    static final int MAX_RETAINED_TOKENS = 64 * 1024;
+
+    private static final ParserPool DEFAULT = new ParserPool(
+            Integer.getInteger(SIZE_PROPERTY, Runtime.getRuntime().availableProcessors() * 2));
+
+    private final BlockingQueue<Instances> idle;
+
+    ParserPool(int size) {
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, size));
+    }
+
+    public static CatScriptProgram parse(String source) {
+        return DEFAULT.parseSource(source);
+    }
+
+    public static <T> T withTokens(String source, Function<TokenList, T> work) {
+        return DEFAULT.withInstances(source, (instances, tokens) -> work.apply(tokens));
+    }
+
+    CatScriptProgram parseSource(String source) {
+        return withInstances(source, (instances, tokens) -> {
+            try {
+                return instances.parser.parse(tokens);
+            } finally {
+                instances.parser.reset();
+            }
+        });
+    }
+
+    int getIdleCount() {
+        return idle.size();
+    }
+
+    // nested use borrows a second set of instances, so callbacks may parse again
+    private <T> T withInstances(String source, Work<T> work) {
+        Instances instances = idle.poll();
+        if (instances == null) {
+            instances = new Instances();
+        }
+        TokenList tokens = null;
+        try {
+            tokens = tokenize(instances.tokenizer, source);
+            return work.apply(instances, tokens);
+        } finally {
+            if (tokens == null || tokens.size() <= MAX_RETAINED_TOKENS) {
+                idle.offer(instances);
+            }
+        }
+    }
+
+    private static TokenList tokenize(CatScriptTokenizer tokenizer, String source) {
+        TokenList tokens = Metrics.measure(Metrics.Phase.TOKENIZE, () -> tokenizer.reset(source));
+        Metrics.recordTokenCount(tokens.size());
+        return tokens;
+    }
+
+    private interface Work<T> {
+        T apply(Instances instances, TokenList tokens);
+    }
+
+    private static class Instances {
+        private final CatScriptTokenizer tokenizer = new CatScriptTokenizer();
+        private final CatScriptParser parser = new CatScriptParser();
+    }
+}
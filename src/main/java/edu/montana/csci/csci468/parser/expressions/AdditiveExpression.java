@@ -2,19 +2,35 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.tokenizer.Token;
 import edu.montana.csci.csci468.tokenizer.TokenType;
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Opcodes;
 
+import java.util.LinkedList;
+import java.util.List;
+
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.descriptorFor;
+
 public class AdditiveExpression extends Expression {
 
+    private static final Handle STRING_CONCAT_BOOTSTRAP = new Handle(Opcodes.H_INVOKESTATIC,
+            "java/lang/invoke/StringConcatFactory", "makeConcatWithConstants",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;" +
+                    "Ljava/lang/String;[Ljava/lang/Object;)Ljava/lang/invoke/CallSite;", false);
+    // StringConcatFactory accepts at most 200 argument slots per call site
+    private static final int MAX_CONCAT_ARGUMENTS = 200;
+    private static final char CONCAT_ARGUMENT = '\u0001';
+    private static final char CONCAT_CONSTANT = '\u0002';
+
     private final Token operator;
-    private final Expression leftHandSide;
-    private final Expression rightHandSide;
+    private Expression leftHandSide;
+    private Expression rightHandSide;
 
     public AdditiveExpression(Token operator, Expression leftHandSide, Expression rightHandSide) {
         this.leftHandSide = addChild(leftHandSide);
@@ -61,10 +77,16 @@ public class AdditiveExpression extends Expression {
         return super.toString() + "[" + operator.getStringValue() + "]";
     }
 
-    public static String internalNameFor(Class clazz) {
-        final String name = clazz.getName();
-        return name.replace(".", "/");
+    @Override
+    public Expression fold() {
+        leftHandSide = replaceChild(leftHandSide, leftHandSide.fold());
+        rightHandSide = replaceChild(rightHandSide, rightHandSide.fold());
+        if (leftHandSide.isConstant() && rightHandSide.isConstant()) {
+            return constantFor(evaluate(null));
+        }
+        return this;
     }
+
     //==============================================================
     // Implementation
     //==============================================================
@@ -106,31 +128,20 @@ public class AdditiveExpression extends Expression {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.append("(");
         getLeftHandSide().transpile(javascript);
-        javascript.append(operator.getStringValue());
+        javascript.append(isAdd() ? " + " : " - ");
         getRightHandSide().transpile(javascript);
+        // |0 keeps int arithmetic in 32 bits, so JITs can keep the values as small integers
+        javascript.append(getType().equals(CatscriptType.INT) ? " | 0)" : ")");
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
         if(getType().equals(CatscriptType.STRING))
         {
-            getLeftHandSide().compile(code);
-            box(code, getLeftHandSide().getType());
-            if(!getLeftHandSide().getType().equals(CatscriptType.STRING))
-            {
-                code.addMethodInstruction(Opcodes.INVOKESTATIC, internalNameFor(String.class), "valueOf", "(Ljava/lang/Object;)Ljava/lang/String;");
-            }
-
-            getRightHandSide().compile(code);
-            box(code, getRightHandSide().getType());
-            if(!getRightHandSide().getType().equals(CatscriptType.STRING))
-            {
-                code.addMethodInstruction(Opcodes.INVOKESTATIC, internalNameFor(String.class), "valueOf", "(Ljava/lang/Object;)Ljava/lang/String;");
-            }
-
-            code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(String.class), "concat", "(Ljava/lang/String;)Ljava/lang/String;");
+            compileConcatenation(code);
         }
         else{
             getLeftHandSide().compile(code);
@@ -143,4 +154,54 @@ public class AdditiveExpression extends Expression {
         }
     }
 
+    // a + b + c + ... becomes a single invokedynamic makeConcatWithConstants call, with
+    // string literals baked into the recipe instead of being pushed on the stack
+    private void compileConcatenation(ByteCodeGenerator code) {
+        List<Expression> operands = new LinkedList<>();
+        collectConcatOperands(this, operands);
+
+        StringBuilder recipe = new StringBuilder();
+        StringBuilder descriptor = new StringBuilder("(");
+        int arguments = 0;
+        for (Expression operand : operands) {
+            if (operand instanceof StringLiteralExpression && isRecipeSafe(((StringLiteralExpression) operand).getValue())) {
+                recipe.append(((StringLiteralExpression) operand).getValue());
+                continue;
+            }
+            if (arguments == MAX_CONCAT_ARGUMENTS) {
+                addConcatInstruction(code, recipe, descriptor);
+                recipe = new StringBuilder().append(CONCAT_ARGUMENT);
+                descriptor = new StringBuilder("(Ljava/lang/String;");
+                arguments = 1;
+            }
+            operand.compile(code);
+            recipe.append(CONCAT_ARGUMENT);
+            descriptor.append(descriptorFor(operand.getType()));
+            arguments++;
+        }
+        addConcatInstruction(code, recipe, descriptor);
+    }
+
+    private void collectConcatOperands(Expression expression, List<Expression> operands) {
+        if (expression instanceof AdditiveExpression && expression.getType().equals(CatscriptType.STRING)) {
+            AdditiveExpression additive = (AdditiveExpression) expression;
+            collectConcatOperands(additive.getLeftHandSide(), operands);
+            collectConcatOperands(additive.getRightHandSide(), operands);
+        } else if (expression instanceof ParenthesizedExpression) {
+            collectConcatOperands(((ParenthesizedExpression) expression).getExpression(), operands);
+        } else {
+            operands.add(expression);
+        }
+    }
+
+    private boolean isRecipeSafe(String value) {
+        return value.indexOf(CONCAT_ARGUMENT) < 0 && value.indexOf(CONCAT_CONSTANT) < 0;
+    }
+
+    private void addConcatInstruction(ByteCodeGenerator code, StringBuilder recipe, StringBuilder descriptor) {
+        descriptor.append(")Ljava/lang/String;");
+        code.addInvokeDynamicInstruction("makeConcatWithConstants", descriptor.toString(),
+                STRING_CONCAT_BOOTSTRAP, recipe.toString());
+    }
+
 }
@@ -2,6 +2,7 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
@@ -24,6 +25,11 @@ public class BooleanLiteralExpression extends Expression {
         return CatscriptType.BOOLEAN;
     }
 
+    @Override
+    public boolean isConstant() {
+        return true;
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
@@ -41,8 +47,8 @@ public class BooleanLiteralExpression extends Expression {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.append(String.valueOf(booleanValue));
     }
 
     @Override
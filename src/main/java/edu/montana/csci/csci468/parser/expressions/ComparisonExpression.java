@@ -2,6 +2,7 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -16,8 +17,8 @@ import org.objectweb.asm.Opcodes;
 public class ComparisonExpression extends Expression {
 
     private final Token operator;
-    private final Expression leftHandSide;
-    private final Expression rightHandSide;
+    private Expression leftHandSide;
+    private Expression rightHandSide;
 
     public ComparisonExpression(Token operator, Expression leftHandSide, Expression rightHandSide) {
         this.leftHandSide = addChild(leftHandSide);
@@ -68,6 +69,16 @@ public class ComparisonExpression extends Expression {
         return CatscriptType.BOOLEAN;
     }
 
+    @Override
+    public Expression fold() {
+        leftHandSide = replaceChild(leftHandSide, leftHandSide.fold());
+        rightHandSide = replaceChild(rightHandSide, rightHandSide.fold());
+        if (leftHandSide.isConstant() && rightHandSide.isConstant()) {
+            return constantFor(evaluate(null));
+        }
+        return this;
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
@@ -125,8 +136,20 @@ public class ComparisonExpression extends Expression {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.append("(");
+        getLeftHandSide().transpile(javascript);
+        if (isLessThan()) {
+            javascript.append(" < ");
+        } else if (isLessThanOrEqual()) {
+            javascript.append(" <= ");
+        } else if (isGreater()) {
+            javascript.append(" > ");
+        } else {
+            javascript.append(" >= ");
+        }
+        getRightHandSide().transpile(javascript);
+        javascript.append(")");
     }
 
     @Override
@@ -1,20 +1,24 @@
 package edu.montana.csci.csci468.parser.expressions;
 
-import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.tokenizer.Token;
 import edu.montana.csci.csci468.tokenizer.TokenType;
 
+import java.util.Objects;
+
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
+
 public class EqualityExpression extends Expression {
 
     private final Token operator;
-    private final Expression leftHandSide;
-    private final Expression rightHandSide;
+    private Expression leftHandSide;
+    private Expression rightHandSide;
 
     public EqualityExpression(Token operator, Expression leftHandSide, Expression rightHandSide) {
         this.leftHandSide = addChild(leftHandSide);
@@ -50,6 +54,18 @@ public class EqualityExpression extends Expression {
         return CatscriptType.BOOLEAN;
     }
 
+    // equality compares values in every backend, so a folded string is equal to the
+    // concatenation it replaced and constant comparisons can be folded too
+    @Override
+    public Expression fold() {
+        leftHandSide = replaceChild(leftHandSide, leftHandSide.fold());
+        rightHandSide = replaceChild(rightHandSide, rightHandSide.fold());
+        if (leftHandSide.isConstant() && rightHandSide.isConstant()) {
+            return constantFor(evaluate(null));
+        }
+        return this;
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
@@ -61,31 +77,36 @@ public class EqualityExpression extends Expression {
 
         if(isEqual())
         {
-            if(lhs == rhs)
-            {
-                return true;
-            }
-            else
-            {
-                return false;
-            }
+            return Objects.equals(lhs, rhs);
         }
         else
         {
-            if(lhs != rhs)
-            {
-                return true;
-            }
-            else
-            {
-                return false;
-            }
+            return !Objects.equals(lhs, rhs);
         }
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        if (mayHoldList(getLeftHandSide()) && mayHoldList(getRightHandSide())) {
+            // === compares arrays by reference, the other backends compare lists by value
+            javascript.append(isEqual() ? "" : "!").useEqualsHelper().append("(");
+            getLeftHandSide().transpile(javascript);
+            javascript.append(", ");
+            getRightHandSide().transpile(javascript);
+            javascript.append(")");
+        } else {
+            // ints, booleans, strings and null compare by value with ===
+            javascript.append("(");
+            getLeftHandSide().transpile(javascript);
+            javascript.append(isEqual() ? " === " : " !== ");
+            getRightHandSide().transpile(javascript);
+            javascript.append(")");
+        }
+    }
+
+    private static boolean mayHoldList(Expression expression) {
+        CatscriptType type = expression.getType();
+        return type.equals(CatscriptType.OBJECT) || type instanceof CatscriptType.ListType;
     }
 
     @Override
@@ -95,22 +116,13 @@ public class EqualityExpression extends Expression {
         getRightHandSide().compile(code);
         box(code, getRightHandSide().getType());
 
-        Label setTrue = new Label();
-        Label end = new Label();
-
-        if(isEqual())
-        {
-            code.addJumpInstruction(Opcodes.IF_ACMPEQ, setTrue);
-        }
-        else
+        code.addMethodInstruction(Opcodes.INVOKESTATIC, internalNameFor(Objects.class), "equals",
+                "(Ljava/lang/Object;Ljava/lang/Object;)Z");
+        if(!isEqual())
         {
-            code.addJumpInstruction(Opcodes.IF_ACMPNE, setTrue);
+            code.addInstruction(Opcodes.ICONST_1);
+            code.addInstruction(Opcodes.IXOR);
         }
-        code.pushConstantOntoStack(false);
-        code.addJumpInstruction(Opcodes.GOTO, end);
-        code.addLabel(setTrue);
-        code.pushConstantOntoStack(true);
-        code.addLabel(end);
     }
 
 
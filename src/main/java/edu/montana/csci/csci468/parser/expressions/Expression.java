@@ -2,6 +2,7 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ParseElement;
 
@@ -12,7 +13,7 @@ public abstract class Expression extends ParseElement {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
+    public void transpile(JavaScriptEmitter javascript) {
         throw new UnsupportedOperationException("transpile needs to be implemented for " + this.getClass().getName());
     }
 
@@ -21,5 +22,42 @@ public abstract class Expression extends ParseElement {
         throw new UnsupportedOperationException("compile needs to be implemented for " + this.getClass().getName());
     }
 
+    //==============================================================
+    // Optimization
+    //==============================================================
+
+    // returns the constant folded form of this expression, which may be this expression
+    public Expression fold() {
+        return this;
+    }
+
+    public boolean isConstant() {
+        return false;
+    }
+
+    protected Expression constantFor(Object value) {
+        Expression literal;
+        if (value instanceof Integer) {
+            literal = new IntegerLiteralExpression(value.toString());
+        } else if (value instanceof String) {
+            literal = new StringLiteralExpression((String) value);
+        } else if (value instanceof Boolean) {
+            literal = new BooleanLiteralExpression((Boolean) value);
+        } else {
+            return this;
+        }
+        literal.setStart(getStart());
+        literal.setEnd(getEnd());
+        return literal;
+    }
+
+    // compiles this expression, boxing it when the target slot holds a reference
+    public void compileAs(ByteCodeGenerator code, CatscriptType targetType) {
+        compile(code);
+        if (!ByteCodeGenerator.isPrimitive(targetType)) {
+            box(code, getType());
+        }
+    }
+
     public abstract CatscriptType getType();
 }
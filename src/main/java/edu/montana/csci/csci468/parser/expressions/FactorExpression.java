@@ -4,6 +4,7 @@ import org.objectweb.asm.Opcodes;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -14,8 +15,8 @@ import edu.montana.csci.csci468.tokenizer.TokenType;
 public class FactorExpression extends Expression {
 
     private final Token operator;
-    private final Expression leftHandSide;
-    private final Expression rightHandSide;
+    private Expression leftHandSide;
+    private Expression rightHandSide;
 
     public FactorExpression(Token operator, Expression leftHandSide, Expression rightHandSide) {
         this.leftHandSide = addChild(leftHandSide);
@@ -57,6 +58,20 @@ public class FactorExpression extends Expression {
         return CatscriptType.INT;
     }
 
+    @Override
+    public Expression fold() {
+        leftHandSide = replaceChild(leftHandSide, leftHandSide.fold());
+        rightHandSide = replaceChild(rightHandSide, rightHandSide.fold());
+        if (leftHandSide.isConstant() && rightHandSide.isConstant()) {
+            try {
+                return constantFor(evaluate(null));
+            } catch (ArithmeticException e) {
+                // leave division by zero to fail at run time
+            }
+        }
+        return this;
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
@@ -77,8 +92,21 @@ public class FactorExpression extends Expression {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        if (isMultiply()) {
+            // a plain * can lose the low bits once the product passes 2^53
+            javascript.useMultiplyHelper().append("(");
+            getLeftHandSide().transpile(javascript);
+            javascript.append(", ");
+            getRightHandSide().transpile(javascript);
+            javascript.append(")");
+        } else {
+            javascript.useDivideHelper().append("(");
+            getLeftHandSide().transpile(javascript);
+            javascript.append(", ");
+            getRightHandSide().transpile(javascript);
+            javascript.append(")");
+        }
     }
 
     @Override
@@ -2,6 +2,7 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -14,6 +15,8 @@ import java.util.List;
 
 import org.objectweb.asm.Opcodes;
 
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.isPrimitive;
+
 public class FunctionCallExpression extends Expression {
     private final String name;
     List<Expression> arguments;
@@ -63,6 +66,15 @@ public class FunctionCallExpression extends Expression {
         }
     }
 
+    @Override
+    public Expression fold() {
+        for (int i = 0; i < arguments.size(); i++) {
+            Expression value = arguments.get(i);
+            arguments.set(i, replaceChild(value, value.fold()));
+        }
+        return this;
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
@@ -80,8 +92,37 @@ public class FunctionCallExpression extends Expression {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.mark(this).appendIdentifier(name).append("(");
+        for (int i = 0; i < arguments.size(); i++) {
+            if (i > 0) {
+                javascript.append(", ");
+            }
+            arguments.get(i).transpile(javascript);
+        }
+        javascript.append(")");
+    }
+
+    public boolean isCallTo(FunctionDefinitionStatement function) {
+        return function != null && name.equals(function.getName());
+    }
+
+    // a self call in tail position reuses the current frame: the new arguments overwrite
+    // the parameter slots and control jumps back to the start of the method
+    public void compileTailCall(ByteCodeGenerator code, FunctionDefinitionStatement function) {
+        for (int i = 0; i < arguments.size(); i++) {
+            arguments.get(i).compileAs(code, function.getParameterType(i));
+        }
+        for (int i = arguments.size() - 1; i >= 0; i--) {
+            Integer slot = code.resolveLocalStorageSlotFor(function.getParameterName(i));
+            if (isPrimitive(function.getParameterType(i))) {
+                code.addVarInstruction(Opcodes.ISTORE, slot);
+            } else {
+                code.addVarInstruction(Opcodes.ASTORE, slot);
+            }
+        }
+        code.addBudgetCheck("step");
+        code.addJumpInstruction(Opcodes.GOTO, code.getTailCallTarget());
     }
 
     @Override
@@ -90,14 +131,11 @@ public class FunctionCallExpression extends Expression {
         FunctionDefinitionStatement function = getProgram().getFunction(name);
         for(int i = 0; i < arguments.size(); i++)
         {
-            Expression argument = arguments.get(i);
-            argument.compile(code);
-            if(function.getParameterType(i).equals(CatscriptType.OBJECT))
-            {
-                box(code, argument.getType());
-            }
+            arguments.get(i).compileAs(code, function.getParameterType(i));
         }
 
+        // calls in a statement spread over several lines show up in stack traces on their own line
+        code.markLine(this);
         code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, code.getProgramInternalName(), name, function.getDescriptor());
     }
 
@@ -2,10 +2,15 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
+import org.objectweb.asm.Opcodes;
+
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.descriptorFor;
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.isPrimitive;
 
 public class IdentifierExpression extends Expression {
     private final String name;
@@ -44,13 +49,23 @@ public class IdentifierExpression extends Expression {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.appendIdentifier(name);
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        Integer slot = code.resolveLocalStorageSlotFor(name);
+        if (slot != null) {
+            if (isPrimitive(type)) {
+                code.addVarInstruction(Opcodes.ILOAD, slot);
+            } else {
+                code.addVarInstruction(Opcodes.ALOAD, slot);
+            }
+        } else {
+            code.addVarInstruction(Opcodes.ALOAD, 0);
+            code.addFieldInstruction(Opcodes.GETFIELD, name, descriptorFor(type), code.getProgramInternalName());
+        }
     }
 
 
@@ -2,6 +2,7 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
@@ -29,6 +30,11 @@ public class IntegerLiteralExpression extends Expression {
         return CatscriptType.INT;
     }
 
+    @Override
+    public boolean isConstant() {
+        return true;
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
@@ -39,8 +45,12 @@ public class IntegerLiteralExpression extends Expression {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        javascript.append(integerVal);
+    public void transpile(JavaScriptEmitter javascript) {
+        if (integerVal < 0) {
+            javascript.append("(").append(integerVal).append(")");
+        } else {
+            javascript.append(integerVal);
+        }
     }
 
     @Override
@@ -2,6 +2,8 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
@@ -10,6 +12,8 @@ import java.util.List;
 
 import org.objectweb.asm.Opcodes;
 
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
+
 public class ListLiteralExpression extends Expression {
     List<Expression> values;
     private CatscriptType type;
@@ -43,12 +47,22 @@ public class ListLiteralExpression extends Expression {
         return type;
     }
 
+    @Override
+    public Expression fold() {
+        for (int i = 0; i < values.size(); i++) {
+            Expression value = values.get(i);
+            values.set(i, replaceChild(value, value.fold()));
+        }
+        return this;
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
+        runtime.getBudget().checkListSize(values.size());
         LinkedList<Object> lst = new LinkedList<>();
         for(Expression value : values)
         {
@@ -59,12 +73,23 @@ public class ListLiteralExpression extends Expression {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.append("[");
+        List<Expression> values = getValues();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                javascript.append(", ");
+            }
+            values.get(i).transpile(javascript);
+        }
+        javascript.append("]");
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
+        code.loadBudget();
+        code.pushConstantOntoStack(values.size());
+        code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(ExecutionBudget.class), "checkListSize", "(I)V");
         code.addTypeInstruction(Opcodes.NEW, "java/util/LinkedList");
         code.addInstruction(Opcodes.DUP);
         code.addMethodInstruction(Opcodes.INVOKESPECIAL, "java/util/LinkedList", "<init>", "()V");
@@ -2,6 +2,7 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
@@ -9,7 +10,7 @@ import edu.montana.csci.csci468.tokenizer.TokenType;
 
 public class ParenthesizedExpression extends Expression {
 
-    private final Expression expression;
+    private Expression expression;
 
     public ParenthesizedExpression(Expression expression) {
         this.expression = addChild(expression);
@@ -29,6 +30,15 @@ public class ParenthesizedExpression extends Expression {
         return expression.getType();
     }
 
+    @Override
+    public Expression fold() {
+        expression = replaceChild(expression, expression.fold());
+        if (expression.isConstant()) {
+            return expression;
+        }
+        return this;
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
@@ -39,7 +49,7 @@ public class ParenthesizedExpression extends Expression {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
+    public void transpile(JavaScriptEmitter javascript) {
         javascript.append("(");
         expression.transpile(javascript);
         javascript.append(")");
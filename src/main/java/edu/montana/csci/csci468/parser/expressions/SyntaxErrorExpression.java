@@ -2,6 +2,7 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.SymbolTable;
@@ -32,7 +33,7 @@ public class SyntaxErrorExpression extends Expression {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
+    public void transpile(JavaScriptEmitter javascript) {
         throw new IllegalStateException("Bad token : " + getStart());
     }
 
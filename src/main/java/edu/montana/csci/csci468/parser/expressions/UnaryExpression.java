@@ -2,17 +2,19 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.tokenizer.Token;
 import edu.montana.csci.csci468.tokenizer.TokenType;
+import org.objectweb.asm.Opcodes;
 
 public class UnaryExpression extends Expression {
 
     private final Token operator;
-    private final Expression rightHandSide;
+    private Expression rightHandSide;
 
     public UnaryExpression(Token operator, Expression rightHandSide) {
         this.rightHandSide = addChild(rightHandSide);
@@ -55,6 +57,15 @@ public class UnaryExpression extends Expression {
         }
     }
 
+    @Override
+    public Expression fold() {
+        rightHandSide = replaceChild(rightHandSide, rightHandSide.fold());
+        if (rightHandSide.isConstant()) {
+            return constantFor(evaluate(null));
+        }
+        return this;
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
@@ -82,13 +93,26 @@ public class UnaryExpression extends Expression {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        if (isMinus()) {
+            javascript.append("(-");
+            getRightHandSide().transpile(javascript);
+            javascript.append(" | 0)");
+        } else {
+            javascript.append("!");
+            getRightHandSide().transpile(javascript);
+        }
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        getRightHandSide().compile(code);
+        if (isMinus()) {
+            code.addInstruction(Opcodes.INEG);
+        } else {
+            code.addInstruction(Opcodes.ICONST_1);
+            code.addInstruction(Opcodes.IXOR);
+        }
     }
 
 
@@ -2,15 +2,23 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import org.objectweb.asm.Opcodes;
+
+import java.util.List;
+
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.descriptorFor;
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.isPrimitive;
 
 public class AssignmentStatement extends Statement {
     private Expression expression;
     private String variableName;
+    private CatscriptType type;
 
     public Expression getExpression() {
         return expression;
@@ -35,6 +43,7 @@ public class AssignmentStatement extends Statement {
         if (symbolType == null) {
             addError(ErrorType.UNKNOWN_NAME);
         } else {
+            type = symbolType;
             if(symbolType.isAssignableFrom(expression.getType()) == false)
             {
                 addError(ErrorType.INCOMPATIBLE_TYPES);
@@ -42,23 +51,44 @@ public class AssignmentStatement extends Statement {
         }
     }
 
+    @Override
+    public List<Statement> fold() {
+        expression = replaceChild(expression, expression.fold());
+        return List.of(this);
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
+        runtime.atLine(this);
         Object eval = expression.evaluate(runtime);
         runtime.setValue(variableName, eval);
-        super.execute(runtime);
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.startStatement(this).appendIdentifier(variableName).append(" = ");
+        expression.transpile(javascript);
+        javascript.endStatement();
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        code.markLine(this);
+        Integer slot = code.resolveLocalStorageSlotFor(variableName);
+        if (slot != null) {
+            expression.compileAs(code, type);
+            if (isPrimitive(type)) {
+                code.addVarInstruction(Opcodes.ISTORE, slot);
+            } else {
+                code.addVarInstruction(Opcodes.ASTORE, slot);
+            }
+        } else {
+            code.addVarInstruction(Opcodes.ALOAD, 0);
+            expression.compileAs(code, type);
+            code.addFieldInstruction(Opcodes.PUTFIELD, variableName, descriptorFor(type), code.getProgramInternalName());
+        }
     }
 }
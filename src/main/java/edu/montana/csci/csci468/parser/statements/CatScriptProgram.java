@@ -2,11 +2,16 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.eval.ExecutionContext;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import edu.montana.csci.csci468.util.FlightRecorderEvents;
 import org.objectweb.asm.Opcodes;
 
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -16,17 +21,46 @@ import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFo
 
 public class CatScriptProgram extends Statement {
 
-    private StringBuffer output = new StringBuffer();
     private List<Statement> statements = new LinkedList<>();
     private Map<String, FunctionDefinitionStatement> functions = new HashMap<>();
     private Expression expression;
+    private ExecutionContext context = new ExecutionContext();
 
     public void print(Object v) {
-        output.append(v).append("\n");
+        context.print(v);
     }
 
     public String getOutput(){
-        return output.toString();
+        return context.getOutput();
+    }
+
+    public ExecutionContext getContext() {
+        return context;
+    }
+
+    public void setContext(ExecutionContext context) {
+        this.context = context;
+    }
+
+    // setOutputWriter and setBudget start a fresh context, call them before running
+
+    // streams print output to the given writer instead of buffering it; callers that want
+    // chunked delivery should hand in a buffered writer and call flushOutput when done
+    public void setOutputWriter(Writer writer) {
+        this.context = new ExecutionContext(writer, context.getBudget());
+    }
+
+    public void flushOutput() {
+        context.flushOutput();
+    }
+
+    // compiled programs check this budget directly, interpreted ones through their runtime
+    public ExecutionBudget getBudget() {
+        return context.getBudget();
+    }
+
+    public void setBudget(ExecutionBudget budget) {
+        this.context = new ExecutionContext(context.getOutputWriter(), budget);
     }
 
     public void addStatement(Statement child) {
@@ -54,10 +88,25 @@ public class CatScriptProgram extends Statement {
         return expression != null;
     }
 
+    // top level statements, an expression program counts as one
+    public int getStatementCount() {
+        return isExpression() ? 1 : statements.size();
+    }
+
     public FunctionDefinitionStatement getFunction(String name) {
         return functions.get(name);
     }
 
+    // constant folding and dead branch elimination over a verified program; the evaluator,
+    // the transpiler and the bytecode generator all work from the optimized tree
+    public void optimize() {
+        if (expression != null) {
+            expression = replaceChild(expression, expression.fold());
+        } else {
+            statements = replaceChildren(statements, foldStatements(statements));
+        }
+    }
+
     @Override
     public void validate(SymbolTable symbolTable) {
         if (expression != null) {
@@ -70,7 +119,7 @@ public class CatScriptProgram extends Statement {
     }
 
     public void execute() {
-        execute(new CatscriptRuntime());
+        execute(new CatscriptRuntime(null, context.getBudget()));
     }
 
     //==============================================================
@@ -78,19 +127,33 @@ public class CatScriptProgram extends Statement {
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
-        if (expression != null) {
-            print(expression.evaluate(runtime));
-        } else {
-            for (Statement statement : statements) {
-                statement.execute(runtime);
+        // functions the tiered runtime compiles during this run check the same budget
+        if (context.getBudget() != runtime.getBudget()) {
+            setBudget(runtime.getBudget());
+        }
+        FlightRecorderEvents.ScriptExecutionEvent event =
+                FlightRecorderEvents.beginExecution("interpreter", getStatementCount(), context, runtime.getBudget());
+        try {
+            if (expression != null) {
+                runtime.atLine(expression);
+                print(expression.evaluate(runtime));
+            } else {
+                for (Statement statement : statements) {
+                    statement.execute(runtime);
+                }
             }
+        } catch (RuntimeException | Error e) {
+            FlightRecorderEvents.abortExecution(event, e);
+            throw e;
+        } finally {
+            FlightRecorderEvents.endExecution(event);
         }
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
+    public void transpile(JavaScriptEmitter javascript) {
         if (isExpression()) {
-            javascript.append("print(");
+            javascript.mark(expression).append("print(");
             expression.transpile(javascript);
             javascript.append(");\n");
         } else {
@@ -103,6 +166,7 @@ public class CatScriptProgram extends Statement {
     @Override
     public void compile(ByteCodeGenerator code) {
         if (isExpression()) {
+            code.markLine(getExpression());
             code.addVarInstruction(Opcodes.ALOAD, 0);
             getExpression().compile(code);
             box(code, getExpression().getType());
@@ -2,15 +2,22 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
 
 import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.isPrimitive;
+
 public class ForStatement extends Statement {
     private Expression expression;
     private String variableName;
@@ -68,32 +75,93 @@ public class ForStatement extends Statement {
         return ((CatscriptType.ListType) expression.getType()).getComponentType();
     }
 
+    @Override
+    public List<Statement> fold() {
+        expression = replaceChild(expression, expression.fold());
+        body = replaceChildren(body, foldStatements(body));
+        return List.of(this);
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
+        runtime.atLine(this);
         Iterable listtoiterate = (Iterable) expression.evaluate(runtime);
         runtime.pushScope();
-        for(Object currentval : listtoiterate)
-        {
-            runtime.setValue(variableName, currentval);
-            for(Statement statement : body)
-            {
-                statement.execute(runtime);
+        try {
+            for (Object currentval : listtoiterate) {
+                // moving to the next element is the loop's own work, not the last body statement's
+                runtime.atLine(this);
+                runtime.getBudget().step();
+                runtime.defineValue(variableName, currentval);
+                for (Statement statement : body) {
+                    statement.execute(runtime);
+                }
             }
+        } finally {
+            runtime.popScope();
         }
-        runtime.popScope();
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        // an indexed loop over the array rather than for-of, which ES5 engines don't have
+        String index = javascript.newTemporary("i");
+        String list = javascript.newTemporary("list");
+        javascript.startStatement(this).append("for (var ").append(index).append(" = 0, ").append(list).append(" = ");
+        expression.transpile(javascript);
+        javascript.append("; ").append(index).append(" < ").append(list).append(".length; ")
+                .append(index).append("++) ").openBlock();
+        javascript.appendIndentation().append("var ").appendIdentifier(variableName).append(" = ")
+                .append(list).append("[").append(index).append("];\n");
+        for (Statement statement : body) {
+            statement.transpile(javascript);
+        }
+        javascript.closeBlock().append("\n");
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        code.markLine(this);
+        code.openScope();
+        Integer iteratorSlot = code.nextLocalStorageSlot();
+        Integer variableSlot = code.createLocalStorageSlotFor(variableName);
+        Label loop = new Label();
+        Label end = new Label();
+
+        expression.compile(code);
+        code.addMethodInstruction(Opcodes.INVOKEINTERFACE, internalNameFor(Iterable.class),
+                "iterator", "()Ljava/util/Iterator;");
+        code.addVarInstruction(Opcodes.ASTORE, iteratorSlot);
+
+        code.addLabel(loop);
+        code.addVarInstruction(Opcodes.ALOAD, iteratorSlot);
+        code.addMethodInstruction(Opcodes.INVOKEINTERFACE, internalNameFor(Iterator.class), "hasNext", "()Z");
+        code.addJumpInstruction(Opcodes.IFEQ, end);
+
+        code.addVarInstruction(Opcodes.ALOAD, iteratorSlot);
+        code.addMethodInstruction(Opcodes.INVOKEINTERFACE, internalNameFor(Iterator.class),
+                "next", "()Ljava/lang/Object;");
+        CatscriptType componentType = getComponentType();
+        code.addTypeInstruction(Opcodes.CHECKCAST, internalNameFor(componentType.getJavaType()));
+        unbox(code, componentType);
+        if (isPrimitive(componentType)) {
+            code.addVarInstruction(Opcodes.ISTORE, variableSlot);
+        } else {
+            code.addVarInstruction(Opcodes.ASTORE, variableSlot);
+        }
+        code.declareLocal(variableName, componentType, variableSlot);
+
+        for (Statement statement : body) {
+            statement.compile(code);
+        }
+        code.markLine(this);
+        code.addBudgetCheck("step");
+        code.addJumpInstruction(Opcodes.GOTO, loop);
+        code.closeScope();
+        code.addLabel(end);
     }
 
 }
@@ -2,9 +2,12 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
+import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
 import edu.montana.csci.csci468.parser.expressions.FunctionCallExpression;
+import org.objectweb.asm.Opcodes;
 
 import java.util.List;
 
@@ -27,21 +30,41 @@ public class FunctionCallStatement extends Statement {
         return expression.getName();
     }
 
+    @Override
+    public List<Statement> fold() {
+        expression.fold();
+        return List.of(this);
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
-        super.execute(runtime);
+        runtime.atLine(this);
+        expression.evaluate(runtime);
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.startStatement(this);
+        expression.transpile(javascript);
+        javascript.endStatement();
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        code.markLine(this);
+        FunctionDefinitionStatement function = getEnclosingFunction();
+        // only a void function's result is unaffected by jumping back instead of falling off the end
+        if (function != null && CatscriptType.VOID.equals(function.getType()) &&
+                expression.isCallTo(function) && isInTailPosition()) {
+            expression.compileTailCall(code, function);
+            return;
+        }
+        expression.compile(code);
+        if (!CatscriptType.VOID.equals(expression.getType())) {
+            code.addInstruction(Opcodes.POP);
+        }
     }
 }
@@ -1,26 +1,42 @@
 package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompiledFunction;
+import edu.montana.csci.csci468.bytecode.TieredCompiler;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
 import edu.montana.csci.csci468.eval.ReturnException;
+import edu.montana.csci.csci468.eval.SampledStack;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.TypeLiteral;
+import org.objectweb.asm.Opcodes;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
-import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.descriptorFor;
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.isPrimitive;
 
 public class FunctionDefinitionStatement extends Statement {
     private String name;
     private CatscriptType type;
     private List<CatscriptType> argumentTypes = new ArrayList<>();
     private List<String> argumentNames = new ArrayList<>();
-    private LinkedList<Statement> body;
+    private List<Statement> body;
+
+    // tiered execution state, see TieredCompiler
+    private final AtomicInteger invocationCount = new AtomicInteger();
+    private final AtomicInteger compileAttempts = new AtomicInteger();
+    private final AtomicReference<TieredCompiler.CompileState> compileState =
+            new AtomicReference<>(TieredCompiler.CompileState.NOT_QUEUED);
+    private volatile CompiledFunction compiledFunction;
 
     public void setName(String name) {
         this.name = name;
@@ -102,11 +118,80 @@ public class FunctionDefinitionStatement extends Statement {
         return true;
     }
 
+    public int getInvocationCount() {
+        return invocationCount.get();
+    }
+
+    public int countInvocation() {
+        return invocationCount.incrementAndGet();
+    }
+
+    public int getCompileAttempts() {
+        return compileAttempts.get();
+    }
+
+    public TieredCompiler.CompileState getCompileState() {
+        return compileState.get();
+    }
+
+    // true if this call moved the function onto the compile queue, at most one caller wins
+    public boolean markQueued() {
+        TieredCompiler.CompileState state = compileState.get();
+        if (state == TieredCompiler.CompileState.QUEUED
+                || !compileState.compareAndSet(state, TieredCompiler.CompileState.QUEUED)) {
+            return false;
+        }
+        compileAttempts.incrementAndGet();
+        return true;
+    }
+
+    public void compileFinished(boolean compiled) {
+        compileState.set(compiled ? TieredCompiler.CompileState.NOT_QUEUED : TieredCompiler.CompileState.FAILED);
+    }
+
+    public CompiledFunction getCompiledFunction() {
+        return compiledFunction;
+    }
+
+    public void setCompiledFunction(CompiledFunction compiledFunction) {
+        this.compiledFunction = compiledFunction;
+    }
+
     public Object invoke(CatscriptRuntime runtime, List<Object> args) {
+        TieredCompiler tieredCompiler = runtime.getTieredCompiler();
+        CompiledFunction compiled = tieredCompiler == null ? null : compiledFunction;
+        // a compiled body charges the call against the budget itself
+        ExecutionBudget budget = runtime.getBudget();
+        if (compiled == null) {
+            budget.enterCall();
+        }
+        SampledStack sampledStack = runtime.getSampledStack();
+        if (sampledStack != null) {
+            sampledStack.push(name, getStart() == null ? 0 : getStart().getLine());
+        }
+        try {
+            if (compiled != null) {
+                return compiled.invoke(runtime.getCompiledInstance(compiled.getCompiledProgram(), getProgram().getContext()), args);
+            }
+            if (tieredCompiler != null) {
+                tieredCompiler.recordInvocation(this);
+            }
+            return interpret(runtime, args);
+        } finally {
+            if (compiled == null) {
+                budget.exitCall();
+            }
+            if (sampledStack != null) {
+                sampledStack.pop();
+            }
+        }
+    }
+
+    private Object interpret(CatscriptRuntime runtime, List<Object> args) {
         runtime.pushScope();
         int parameterCount = getParameterCount();
         for (int i = 0; i < parameterCount; i++) {
-            runtime.setValue(getParameterName(i), args.get(i));
+            runtime.defineValue(getParameterName(i), args.get(i));
         }
         Object returnVal = null;
         try {
@@ -124,23 +209,19 @@ public class FunctionDefinitionStatement extends Statement {
     public String getDescriptor() {
         StringBuilder sb = new StringBuilder("(");
         for (CatscriptType argumentType : argumentTypes) {
-            if (argumentType.equals(CatscriptType.BOOLEAN) || argumentType.equals(CatscriptType.INT)) {
-                sb.append("I");
-            } else {
-                sb.append("L").append(internalNameFor(getType().getJavaType())).append(";");
-            }
+            sb.append(descriptorFor(argumentType));
         }
         sb.append(")");
-        if (type.equals(CatscriptType.VOID)) {
-            sb.append("V");
-        } else if (type.equals(CatscriptType.BOOLEAN) || type.equals(CatscriptType.INT)) {
-            sb.append("I");
-        } else {
-            sb.append("L").append(internalNameFor(getType().getJavaType())).append(";");
-        }
+        sb.append(descriptorFor(type));
         return sb.toString();
     }
 
+    @Override
+    public List<Statement> fold() {
+        body = replaceChildren(body, foldStatements(body));
+        return List.of(this);
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
@@ -150,12 +231,53 @@ public class FunctionDefinitionStatement extends Statement {
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.startStatement(this).append("function ").appendIdentifier(name).append("(");
+        for (int i = 0; i < getParameterCount(); i++) {
+            if (i > 0) {
+                javascript.append(", ");
+            }
+            javascript.appendIdentifier(getParameterName(i));
+        }
+        javascript.append(") ").openBlock();
+        // asm.js style annotations, int parameters are known to be small integers from the start
+        for (int i = 0; i < getParameterCount(); i++) {
+            if (getParameterType(i).equals(CatscriptType.INT)) {
+                javascript.appendIndentation().appendIdentifier(getParameterName(i)).append(" = ")
+                        .appendIdentifier(getParameterName(i)).append(" | 0;\n");
+            }
+        }
+        for (Statement statement : body) {
+            statement.transpile(javascript);
+        }
+        javascript.closeBlock().append("\n");
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        // final methods on a final class, so every call to them is monomorphic
+        code.pushMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, name, getDescriptor());
+        for (int i = 0; i < getParameterCount(); i++) {
+            Integer slot = code.createLocalStorageSlotFor(getParameterName(i));
+            code.declareLocal(getParameterName(i), getParameterType(i), slot);
+        }
+        code.markLine(this);
+        code.addBudgetCheck("enterCall");
+        code.markTailCallTarget();
+        for (Statement statement : body) {
+            statement.compile(code);
+        }
+        // falling off the end returns the default value, return coverage is not checked
+        code.addBudgetCheck("exitCall");
+        if (type.equals(CatscriptType.VOID)) {
+            code.addInstruction(Opcodes.RETURN);
+        } else if (isPrimitive(type)) {
+            code.addInstruction(Opcodes.ICONST_0);
+            code.addInstruction(Opcodes.IRETURN);
+        } else {
+            code.addInstruction(Opcodes.ACONST_NULL);
+            code.addInstruction(Opcodes.ARETURN);
+        }
+        code.popMethod();
     }
 }
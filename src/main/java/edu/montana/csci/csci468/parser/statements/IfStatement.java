@@ -2,11 +2,15 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
+import edu.montana.csci.csci468.parser.expressions.BooleanLiteralExpression;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
 
 import java.util.Collections;
 import java.util.LinkedList;
@@ -65,42 +69,101 @@ public class IfStatement extends Statement {
         symbolTable.popScope();
     }
 
+    @Override
+    public List<Statement> fold() {
+        expression = replaceChild(expression, expression.fold());
+        trueStatements = replaceChildren(trueStatements, foldStatements(trueStatements));
+        elseStatements = replaceChildren(elseStatements, foldStatements(elseStatements));
+        if (expression instanceof BooleanLiteralExpression) {
+            boolean condition = ((BooleanLiteralExpression) expression).getValue();
+            List<Statement> live = condition ? trueStatements : elseStatements;
+            if (!declaresVariables(live)) {
+                return live;
+            }
+            // the live branch needs its own scope, so keep the if and drop the dead branch
+            if (condition) {
+                elseStatements = replaceChildren(elseStatements, new LinkedList<>());
+            } else {
+                trueStatements = replaceChildren(trueStatements, new LinkedList<>());
+            }
+        }
+        return List.of(this);
+    }
+
+    private boolean declaresVariables(List<Statement> statements) {
+        for (Statement statement : statements) {
+            if (statement instanceof VariableStatement) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
+        runtime.atLine(this);
         Object conditionalresult = expression.evaluate(runtime);
 
         
+        // a return unwinds through here, so the scope has to go on the way out either way
         if(Boolean.TRUE.equals(conditionalresult))
         {
             runtime.pushScope();
-            for(Statement trueStatement : trueStatements)
-            {
-                trueStatement.execute(runtime);
+            try {
+                for (Statement trueStatement : trueStatements) {
+                    trueStatement.execute(runtime);
+                }
+            } finally {
+                runtime.popScope();
             }
-            runtime.popScope();
         }
         else
         {
             runtime.pushScope();
-            for(Statement elseStatement : elseStatements)
-            {
-                elseStatement.execute(runtime);
+            try {
+                for (Statement elseStatement : elseStatements) {
+                    elseStatement.execute(runtime);
+                }
+            } finally {
+                runtime.popScope();
             }
-            runtime.popScope();
         }
         
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.startStatement(this).append("if (");
+        expression.transpile(javascript);
+        javascript.append(") ").block(trueStatements);
+        if (!elseStatements.isEmpty()) {
+            javascript.append(" else ").block(elseStatements);
+        }
+        javascript.append("\n");
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        code.markLine(this);
+        Label elseLabel = new Label();
+        Label end = new Label();
+        expression.compile(code);
+        code.addJumpInstruction(Opcodes.IFEQ, elseLabel);
+        code.openScope();
+        for (Statement trueStatement : trueStatements) {
+            trueStatement.compile(code);
+        }
+        code.closeScope();
+        code.addJumpInstruction(Opcodes.GOTO, end);
+        code.addLabel(elseLabel);
+        code.openScope();
+        for (Statement elseStatement : elseStatements) {
+            elseStatement.compile(code);
+        }
+        code.closeScope();
+        code.addLabel(end);
     }
 }
@@ -2,8 +2,15 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
+import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import org.objectweb.asm.Opcodes;
+
+import java.util.List;
+
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
 
 public class PrintStatement extends Statement {
     private Expression expression;
@@ -22,22 +29,35 @@ public class PrintStatement extends Statement {
         expression.validate(symbolTable);
     }
 
+    @Override
+    public List<Statement> fold() {
+        expression = replaceChild(expression, expression.fold());
+        return List.of(this);
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
+        runtime.atLine(this);
         getProgram().print(expression.evaluate(runtime));
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.startStatement(this).append("print(");
+        expression.transpile(javascript);
+        javascript.append(")").endStatement();
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        code.markLine(this);
+        code.addVarInstruction(Opcodes.ALOAD, 0);
+        expression.compileAs(code, CatscriptType.OBJECT);
+        code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(CatScriptProgram.class),
+                "print", "(Ljava/lang/Object;)V");
     }
 
 }
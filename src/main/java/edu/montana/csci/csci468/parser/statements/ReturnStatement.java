@@ -2,11 +2,19 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ReturnException;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import edu.montana.csci.csci468.parser.expressions.FunctionCallExpression;
+import org.objectweb.asm.Opcodes;
+
+import java.util.List;
+
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.isPrimitive;
 
 public class ReturnStatement extends Statement {
     private Expression expression;
@@ -38,22 +46,55 @@ public class ReturnStatement extends Statement {
         }
     }
 
+    @Override
+    public List<Statement> fold() {
+        if (expression != null) {
+            expression = replaceChild(expression, expression.fold());
+        }
+        return List.of(this);
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
-        super.execute(runtime);
+        runtime.atLine(this);
+        Object value = null;
+        if (expression != null) {
+            value = expression.evaluate(runtime);
+        }
+        throw new ReturnException(value);
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.startStatement(this).append("return");
+        if (expression != null) {
+            javascript.append(" ");
+            expression.transpile(javascript);
+        }
+        javascript.endStatement();
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        code.markLine(this);
+        if (expression == null) {
+            code.addBudgetCheck("exitCall");
+            code.addInstruction(Opcodes.RETURN);
+        } else if (expression instanceof FunctionCallExpression &&
+                ((FunctionCallExpression) expression).isCallTo(function)) {
+            ((FunctionCallExpression) expression).compileTailCall(code, function);
+        } else {
+            expression.compileAs(code, function.getType());
+            code.addBudgetCheck("exitCall");
+            if (isPrimitive(function.getType())) {
+                code.addInstruction(Opcodes.IRETURN);
+            } else {
+                code.addInstruction(Opcodes.ARETURN);
+            }
+        }
     }
 
 }
\ No newline at end of file
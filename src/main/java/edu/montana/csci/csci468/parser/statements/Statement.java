@@ -4,8 +4,50 @@ import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
 import edu.montana.csci.csci468.parser.ParseElement;
 
+import java.util.LinkedList;
+import java.util.List;
+
 public abstract class Statement extends ParseElement {
 
+    // returns the statements that replace this one after constant folding; usually just
+    // this statement, empty or the live branch when dead code is removed
+    public List<Statement> fold() {
+        return List.of(this);
+    }
+
+    public FunctionDefinitionStatement getEnclosingFunction() {
+        ParseElement element = getParent();
+        while (element != null && !(element instanceof FunctionDefinitionStatement)) {
+            element = element.getParent();
+        }
+        return (FunctionDefinitionStatement) element;
+    }
+
+    // true when nothing else in the enclosing function runs after this statement
+    public boolean isInTailPosition() {
+        ParseElement parent = getParent();
+        if (parent instanceof FunctionDefinitionStatement) {
+            return isLast(((FunctionDefinitionStatement) parent).getBody());
+        } else if (parent instanceof IfStatement) {
+            IfStatement ifStatement = (IfStatement) parent;
+            return (isLast(ifStatement.getTrueStatements()) || isLast(ifStatement.getElseStatements())) &&
+                    ifStatement.isInTailPosition();
+        }
+        return false;
+    }
+
+    private boolean isLast(List<Statement> statements) {
+        return !statements.isEmpty() && statements.get(statements.size() - 1) == this;
+    }
+
+    protected List<Statement> foldStatements(List<Statement> statements) {
+        List<Statement> folded = new LinkedList<>();
+        for (Statement statement : statements) {
+            folded.addAll(statement.fold());
+        }
+        return folded;
+    }
+
     public void execute(CatscriptRuntime runtime) {
         throw new UnsupportedOperationException("execute needs to be implemented for " + this.getClass().getName());
     }
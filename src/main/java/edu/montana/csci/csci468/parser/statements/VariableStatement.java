@@ -2,11 +2,18 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.js.JavaScriptEmitter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import org.objectweb.asm.Opcodes;
+
+import java.util.List;
+
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.descriptorFor;
+import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.isPrimitive;
 
 public class VariableStatement extends Statement {
     private Expression expression;
@@ -69,23 +76,47 @@ public class VariableStatement extends Statement {
         return type;
     }
 
+    @Override
+    public List<Statement> fold() {
+        expression = replaceChild(expression, expression.fold());
+        return List.of(this);
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
+        runtime.atLine(this);
         Object varresult = expression.evaluate(runtime);
 
-        runtime.setValue(variableName, varresult);
+        runtime.defineValue(variableName, varresult);
     }
 
     @Override
-    public void transpile(StringBuilder javascript) {
-        super.transpile(javascript);
+    public void transpile(JavaScriptEmitter javascript) {
+        javascript.startStatement(this).append("var ").appendIdentifier(variableName).append(" = ");
+        expression.transpile(javascript);
+        javascript.endStatement();
     }
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        super.compile(code);
+        code.markLine(this);
+        if (isGlobal()) {
+            code.addField(variableName, descriptorFor(type));
+            code.addVarInstruction(Opcodes.ALOAD, 0);
+            expression.compileAs(code, type);
+            code.addFieldInstruction(Opcodes.PUTFIELD, variableName, descriptorFor(type), code.getProgramInternalName());
+        } else {
+            Integer slot = code.createLocalStorageSlotFor(variableName);
+            expression.compileAs(code, type);
+            if (isPrimitive(type)) {
+                code.addVarInstruction(Opcodes.ISTORE, slot);
+            } else {
+                code.addVarInstruction(Opcodes.ASTORE, slot);
+            }
+            code.declareLocal(variableName, type, slot);
+        }
     }
 }
@@ -8,12 +8,31 @@ public class CatScriptTokenizer {
     String src;
     int postion = 0;
     int line = 1;
-    int lineOffset = 0;
+    // source offset of the first character on the current line, and on the line the token
+    // being scanned started on
+    int lineStart = 0;
+    int tokenLineStart = 0;
 
     public CatScriptTokenizer(String source) {
-        src = source;
+        this();
+        reset(source);
+    }
+
+    public CatScriptTokenizer() {
         tokenList = new TokenList(this);
+    }
+
+    // tokenizes a new source, reusing this tokenizer's token list and its backing array;
+    // the tokens from the previous source are no longer available through getTokens()
+    public TokenList reset(String source) {
+        src = source;
+        postion = 0;
+        line = 1;
+        lineStart = 0;
+        tokenLineStart = 0;
+        tokenList.clear();
         tokenize();
+        return tokenList;
     }
 
     private void tokenize() {
@@ -22,10 +41,12 @@ public class CatScriptTokenizer {
             scanToken();
             consumeWhitespace();
         }
-        tokenList.addToken(EOF, "<EOF>", postion, postion, line, lineOffset);
+        tokenLineStart = lineStart;
+        tokenList.addToken(EOF, "<EOF>", postion, postion, line);
     }
 
     private void scanToken() {
+        tokenLineStart = lineStart;
         if(scanNumber()) {
             return;
         }
@@ -65,14 +86,14 @@ public class CatScriptTokenizer {
 
             if(tokenizationEnd())
             {
-                tokenList.addToken(ERROR, "Unterminated string", start, postion, line, lineOffset);
+                tokenList.addToken(ERROR, "Unterminated string", start, postion, line);
                 return true;
             }
 
             takeChar();
 
             String value = src.substring(start+1, postion-1);
-            tokenList.addToken(STRING, value, start, postion, line, lineOffset);
+            tokenList.addToken(STRING, value, start, postion, line);
             return true;
         }
         else
@@ -89,9 +110,9 @@ public class CatScriptTokenizer {
             }
             String value = src.substring(start, postion);
             if (KEYWORDS.containsKey(value)) {
-                tokenList.addToken(KEYWORDS.get(value), value, start, postion, line, lineOffset);
+                tokenList.addToken(KEYWORDS.get(value), value, start, postion, line);
             } else {
-                tokenList.addToken(IDENTIFIER, value, start, postion, line, lineOffset);
+                tokenList.addToken(IDENTIFIER, value, start, postion, line);
             }
             return true;
         } else {
@@ -105,7 +126,7 @@ public class CatScriptTokenizer {
             while (isDigit(peek())) {
                 takeChar();
             }
-            tokenList.addToken(INTEGER, src.substring(start, postion), start, postion, line, lineOffset);
+            tokenList.addToken(INTEGER, src.substring(start, postion), start, postion, line);
             return true;
         } else {
             return false;
@@ -117,32 +138,32 @@ public class CatScriptTokenizer {
         //      - implement comments
         int start = postion;
         if(matchAndConsume('+')) {
-            tokenList.addToken(PLUS, "+", start, postion, line, lineOffset);
+            tokenList.addToken(PLUS, "+", start, postion, line);
         } else if(matchAndConsume('-')) {
-            tokenList.addToken(MINUS, "-", start, postion, line, lineOffset);
+            tokenList.addToken(MINUS, "-", start, postion, line);
         } else if(matchAndConsume('(')) {
-            tokenList.addToken(LEFT_PAREN, "(", start, postion, line, lineOffset);
+            tokenList.addToken(LEFT_PAREN, "(", start, postion, line);
         } else if(matchAndConsume(')')) {
-            tokenList.addToken(RIGHT_PAREN, ")", start, postion, line, lineOffset);
+            tokenList.addToken(RIGHT_PAREN, ")", start, postion, line);
         } else if(matchAndConsume('{')) {
-            tokenList.addToken(LEFT_BRACE, "{", start, postion, line, lineOffset);
+            tokenList.addToken(LEFT_BRACE, "{", start, postion, line);
         } else if(matchAndConsume('}')) {
-            tokenList.addToken(RIGHT_BRACE, "}", start, postion, line, lineOffset);
+            tokenList.addToken(RIGHT_BRACE, "}", start, postion, line);
         } else if(matchAndConsume('[')) {
-            tokenList.addToken(LEFT_BRACKET, "[", start, postion, line, lineOffset);
+            tokenList.addToken(LEFT_BRACKET, "[", start, postion, line);
         } else if(matchAndConsume(']')) {
-            tokenList.addToken(RIGHT_BRACKET, "]", start, postion, line, lineOffset);
+            tokenList.addToken(RIGHT_BRACKET, "]", start, postion, line);
         } else if(matchAndConsume(':')) {
-            tokenList.addToken(COLON, ":", start, postion, line, lineOffset);
+            tokenList.addToken(COLON, ":", start, postion, line);
         } else if(matchAndConsume(',')) {
-            tokenList.addToken(COMMA, ",", start, postion, line, lineOffset);
+            tokenList.addToken(COMMA, ",", start, postion, line);
         } else if(matchAndConsume('.')) {
-            tokenList.addToken(DOT, ".", start, postion, line, lineOffset);
+            tokenList.addToken(DOT, ".", start, postion, line);
         } else if(matchAndConsume('*')) {
-            tokenList.addToken(STAR, "*", start, postion, line, lineOffset);
+            tokenList.addToken(STAR, "*", start, postion, line);
         }  else if(matchAndConsume('!')) {
             if (matchAndConsume('=')) {
-                tokenList.addToken(BANG_EQUAL, "!=", start, postion, line, lineOffset);
+                tokenList.addToken(BANG_EQUAL, "!=", start, postion, line);
             }
         } else if(matchAndConsume('/')) {
             if (matchAndConsume('/')) {
@@ -150,43 +171,41 @@ public class CatScriptTokenizer {
                     takeChar();
                 }
             } else {
-                tokenList.addToken(SLASH, "-", start, postion, line, lineOffset);
+                tokenList.addToken(SLASH, "-", start, postion, line);
             }
         } else if(matchAndConsume('=')) {
             if (matchAndConsume('=')) {
-                tokenList.addToken(EQUAL_EQUAL, "==", start, postion, line, lineOffset);
+                tokenList.addToken(EQUAL_EQUAL, "==", start, postion, line);
             } else {
-                tokenList.addToken(EQUAL, "=", start, postion, line, lineOffset);
+                tokenList.addToken(EQUAL, "=", start, postion, line);
             }
         } else if(matchAndConsume('>')) {
             if (matchAndConsume('=')) {
-                tokenList.addToken(GREATER_EQUAL, ">=", start, postion, line, lineOffset);
+                tokenList.addToken(GREATER_EQUAL, ">=", start, postion, line);
             } else {
-                tokenList.addToken(GREATER, ">", start, postion, line, lineOffset);
+                tokenList.addToken(GREATER, ">", start, postion, line);
             }
         }  else if(matchAndConsume('<')) {
             if (matchAndConsume('=')) {
-                tokenList.addToken(LESS_EQUAL, "<=", start, postion, line, lineOffset);
+                tokenList.addToken(LESS_EQUAL, "<=", start, postion, line);
             } else {
-                tokenList.addToken(LESS, "<", start, postion, line, lineOffset);
+                tokenList.addToken(LESS, "<", start, postion, line);
             }
         } else {
-            tokenList.addToken(ERROR, "<Unexpected Token: [" + takeChar() + "]>", start, postion, line, lineOffset);
+            tokenList.addToken(ERROR, "<Unexpected Token: [" + takeChar() + "]>", start, postion, line);
         }
     }
 
     private void consumeWhitespace() {
-        // TODO update line and lineOffsets
         while (!tokenizationEnd()) {
             char c = peek();
             if (c == ' ' || c == '\r' || c == '\t') {
                 postion++;
-                lineOffset++;
                 continue;
             } else if (c == '\n') {
                 postion++;
                 line++;
-                lineOffset = 0;
+                lineStart = postion;
                 continue;
             }
             break;
@@ -218,7 +237,6 @@ public class CatScriptTokenizer {
 
     private char takeChar() {
         char c = src.charAt(postion);
-        lineOffset++;
         postion++;
         return c;
     }
@@ -5,19 +5,20 @@ public class Token {
     int start;
     int end;
     int line;
-    int lineOffset;
+    int lineStart;
     String stringValue;
     TokenType type;
-    private final CatScriptTokenizer tokenizer;
+    // tokens outlive a reused tokenizer, so they keep the source rather than the tokenizer
+    private final String source;
 
-    public Token(int start, int end, int line, int lineOffset, String stringValue, TokenType type, CatScriptTokenizer tokenizer) {
+    public Token(int start, int end, int line, int lineStart, String stringValue, TokenType type, String source) {
         this.start = start;
         this.end = end;
         this.line = line;
-        this.lineOffset = lineOffset;
+        this.lineStart = lineStart;
         this.stringValue = stringValue;
         this.type = type;
-        this.tokenizer = tokenizer;
+        this.source = source;
     }
 
     public int getStart() {
@@ -32,8 +33,20 @@ public class Token {
         return line;
     }
 
+    // the same as the column: offsets are only kept as line starts, which every token on
+    // a line shares, so tokens don't grow by a field
     public int getLineOffset() {
-        return lineOffset;
+        return start - lineStart;
+    }
+
+    // source offset of the first character on the line this token starts on
+    public int getLineStart() {
+        return lineStart;
+    }
+
+    // zero based
+    public int getColumn() {
+        return start - lineStart;
     }
 
     public String getStringValue() {
@@ -51,12 +64,12 @@ public class Token {
                 ", start=" + start +
                 ", end=" + end +
                 ", line=" + line +
-                ", offset=" + lineOffset +
+                ", offset=" + getLineOffset() +
                 '}';
     }
 
     public String getLineContent() {
-        String[] lines = tokenizer.src.split("\n");
+        String[] lines = source.split("\n");
         return lines[line - 1];
     }
 }
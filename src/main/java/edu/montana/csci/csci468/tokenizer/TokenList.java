@@ -20,8 +20,12 @@ public class TokenList implements Iterable<Token> {
         this.tokenizer = tokenizer;
     }
 
-    void addToken(TokenType eof, String stringValue, int start, int end, int line, int lineOffset) {
-        tokens.add(new Token(start, end, line, lineOffset - (end - start), stringValue, eof, tokenizer));
+    void addToken(TokenType eof, String stringValue, int start, int end, int line) {
+        tokens.add(new Token(start, end, line, tokenizer.tokenLineStart, stringValue, eof, tokenizer.src));
+    }
+
+    public int size() {
+        return tokens.size();
     }
 
     public Token getCurrentToken() {
@@ -63,6 +67,12 @@ public class TokenList implements Iterable<Token> {
         currentToken = 0;
     }
 
+    // drops the tokens but keeps the backing array, for tokenizers that are reused
+    void clear() {
+        tokens.clear();
+        currentToken = 0;
+    }
+
     public boolean hasMoreTokens() {
         return currentToken < tokens.size() - 1;
     }
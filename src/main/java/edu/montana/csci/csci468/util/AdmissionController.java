@@ -0,0 +1,215 @@
+package edu.montana.csci.csci468.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Decides whether a request gets to start work at all, before anything is read or tokenized.
+// At most `maxConcurrent` requests hold a ticket at once and up to `maxQueued` more wait in
+// line, cheap ones ahead of expensive ones.  Expensive requests may only fill part of the
+// line so a burst of compiles can't lock out tokenizing, and nobody waits longer than
+// `maxWaitMillis`, which keeps tail latency bounded once offered load exceeds capacity.
+// Each client is also capped at `maxPerClient` requests running or waiting.  Rejections are
+// immediate and carry a Retry-After estimate from the recent average service time.
+public class AdmissionController {
+
+    public enum Priority {
+        CHEAP, EXPENSIVE
+    }
+
+    public static final String MAX_CONCURRENT_PROPERTY = "catscript.admission.maxConcurrent";
+    public static final String MAX_QUEUED_PROPERTY = "catscript.admission.maxQueued";
+    public static final String MAX_PER_CLIENT_PROPERTY = "catscript.admission.maxPerClient";
+    public static final String MAX_WAIT_MILLIS_PROPERTY = "catscript.admission.maxWaitMillis";
+
+    // share of the line expensive requests may take up, the rest is held for cheap ones
+    static final double EXPENSIVE_QUEUE_SHARE = 0.75;
+
+    private static AdmissionController defaultController;
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final int maxPerClient;
+    private final long maxWaitMillis;
+
+    private final PriorityQueue<Waiter> waiting = new PriorityQueue<>();
+    private final Map<String, Integer> perClient = new HashMap<>();
+    private int running;
+    private int expensiveWaiting;
+    private long sequence;
+    private double averageServiceMillis = 10;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AdmissionController(int maxConcurrent, int maxQueued, int maxPerClient, long maxWaitMillis) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxPerClient = maxPerClient;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public static synchronized AdmissionController getDefault() {
+        if (defaultController == null) {
+            defaultController = new AdmissionController(
+                    Integer.getInteger(MAX_CONCURRENT_PROPERTY, Runtime.getRuntime().availableProcessors() * 4),
+                    Integer.getInteger(MAX_QUEUED_PROPERTY, 256),
+                    Integer.getInteger(MAX_PER_CLIENT_PROPERTY, 16),
+                    Long.getLong(MAX_WAIT_MILLIS_PROPERTY, 2000));
+        }
+        return defaultController;
+    }
+
+    // blocks for at most maxWaitMillis; the returned ticket must be closed when the work is done
+    public Ticket admit(String client, Priority priority) throws InterruptedException {
+        Waiter waiter;
+        synchronized (this) {
+            int clientCount = perClient.getOrDefault(client, 0);
+            if (clientCount >= maxPerClient) {
+                throw reject("Too many concurrent requests from this client");
+            }
+            if (running < maxConcurrent && waiting.isEmpty()) {
+                running++;
+                perClient.put(client, clientCount + 1);
+                admitted.increment();
+                return new Ticket(client);
+            }
+            int queueLimit = priority == Priority.EXPENSIVE ? (int) (maxQueued * EXPENSIVE_QUEUE_SHARE) : maxQueued;
+            int queued = priority == Priority.EXPENSIVE ? expensiveWaiting : waiting.size();
+            if (queued >= queueLimit) {
+                throw reject("Server is at capacity");
+            }
+            perClient.put(client, clientCount + 1);
+            waiter = new Waiter(priority, sequence++);
+            waiting.add(waiter);
+            if (priority == Priority.EXPENSIVE) {
+                expensiveWaiting++;
+            }
+        }
+        boolean interrupted = false;
+        try {
+            waiter.granted.await(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        synchronized (this) {
+            if (waiter.granted.getCount() == 0) {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                admitted.increment();
+                return new Ticket(client);
+            }
+            waiting.remove(waiter);
+            if (waiter.priority == Priority.EXPENSIVE) {
+                expensiveWaiting--;
+            }
+            releaseClient(client);
+            if (interrupted) {
+                throw new InterruptedException();
+            }
+            throw reject("Timed out waiting for capacity");
+        }
+    }
+
+    private synchronized void release(Ticket ticket) {
+        releaseClient(ticket.client);
+        double serviceMillis = (System.nanoTime() - ticket.startNanos) / 1e6;
+        averageServiceMillis = averageServiceMillis * 0.9 + serviceMillis * 0.1;
+        Waiter next = waiting.poll();
+        if (next == null) {
+            running--;
+            return;
+        }
+        // the slot passes straight to the next waiter, so running stays the same
+        if (next.priority == Priority.EXPENSIVE) {
+            expensiveWaiting--;
+        }
+        next.granted.countDown();
+    }
+
+    private void releaseClient(String client) {
+        int count = perClient.getOrDefault(client, 0) - 1;
+        if (count <= 0) {
+            perClient.remove(client);
+        } else {
+            perClient.put(client, count);
+        }
+    }
+
+    // callers hold the lock
+    private OverloadedException reject(String message) {
+        rejected.increment();
+        double drainMillis = (waiting.size() + 1) * averageServiceMillis / maxConcurrent;
+        int retryAfter = (int) Math.max(1, Math.ceil(drainMillis / 1000));
+        return new OverloadedException(message, retryAfter);
+    }
+
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    public synchronized int getWaiting() {
+        return waiting.size();
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public String renderPrometheus() {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP catscript_admission_running Requests currently holding an admission ticket\n");
+        out.append("# TYPE catscript_admission_running gauge\n");
+        out.append("catscript_admission_running ").append(getRunning()).append('\n');
+        out.append("# HELP catscript_admission_waiting Requests waiting for an admission ticket\n");
+        out.append("# TYPE catscript_admission_waiting gauge\n");
+        out.append("catscript_admission_waiting ").append(getWaiting()).append('\n');
+        out.append("# HELP catscript_admission_rejected_total Requests turned away with a 503\n");
+        out.append("# TYPE catscript_admission_rejected_total counter\n");
+        out.append("catscript_admission_rejected_total ").append(getRejected()).append('\n');
+        return out.toString();
+    }
+
+    public class Ticket implements AutoCloseable {
+        private final String client;
+        private final long startNanos = System.nanoTime();
+        private boolean closed;
+
+        private Ticket(String client) {
+            this.client = client;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(this);
+            }
+        }
+    }
+
+    private static class Waiter implements Comparable<Waiter> {
+        private final Priority priority;
+        private final long sequence;
+        private final CountDownLatch granted = new CountDownLatch(1);
+
+        Waiter(Priority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompiledProgram;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.eval.ExecutionContext;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import edu.montana.csci.csci468.tokenizer.TokenList;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Runs a stream of programs through tokenize -> parse -> verify -> execute.  Each stage has
+// its own pool, so while one program executes the next ones are already being tokenized,
+// parsed and verified.  Results are handed back in completion order, not submission order.
+// Every program runs under a budget whose timeout is at most timeoutMillis, the same limit
+// ScriptExecutor puts on a single request.
+//
+// The wire format is newline-delimited JSON in both directions:
+//   in:  {"id": "a", "src": "print(1)", "mode": "evaluate" | "compile"}
+//   out: {"id": "a", "ok": true, "output": "1\n"}  or  {"id": "a", "ok": false, "error": "..."}
+public class BatchProcessor {
+
+    public static final String MAX_IN_FLIGHT_PROPERTY = "catscript.batch.maxInFlight";
+
+    private static BatchProcessor defaultProcessor;
+
+    private final ExecutorService tokenizeStage;
+    private final ExecutorService parseStage;
+    private final ExecutorService verifyStage;
+    private final ExecutorService executeStage;
+    private final int maxInFlight;
+    private final long timeoutMillis;
+
+    public BatchProcessor(int frontEndThreads, int executeThreads, int maxInFlight) {
+        this(frontEndThreads, executeThreads, maxInFlight, ScriptExecutor.DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public BatchProcessor(int frontEndThreads, int executeThreads, int maxInFlight, long timeoutMillis) {
+        this.tokenizeStage = newStage("catscript-batch-tokenize", frontEndThreads);
+        this.parseStage = newStage("catscript-batch-parse", frontEndThreads);
+        this.verifyStage = newStage("catscript-batch-verify", frontEndThreads);
+        this.executeStage = newStage("catscript-batch-execute", executeThreads);
+        this.maxInFlight = maxInFlight;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public static synchronized BatchProcessor getDefault() {
+        if (defaultProcessor == null) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            int maxInFlight = Integer.getInteger(MAX_IN_FLIGHT_PROPERTY, cores * 4);
+            long timeoutMillis = Long.getLong(ScriptExecutor.TIMEOUT_PROPERTY, ScriptExecutor.DEFAULT_TIMEOUT_MILLIS);
+            defaultProcessor = new BatchProcessor(Math.max(1, cores / 2), cores, maxInFlight, timeoutMillis);
+        }
+        return defaultProcessor;
+    }
+
+    private static ExecutorService newStage(String name, int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int process(BufferedReader jobs, Consumer<String> results) throws IOException, InterruptedException {
+        return process(jobs, results, () -> false);
+    }
+
+    // reads one job per line and blocks until every result has been delivered; at most
+    // maxInFlight programs are in the pipeline at once so huge batches don't pile up in memory.
+    // Once `abandoned` reports that nobody is reading the results any more, no further jobs
+    // are read and those that haven't started executing are skipped.
+    public int process(BufferedReader jobs, Consumer<String> results, BooleanSupplier abandoned) throws IOException, InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Consumer<String> serialized = result -> {
+            synchronized (results) {
+                results.accept(result);
+            }
+        };
+        int count = 0;
+        String line;
+        while (!abandoned.getAsBoolean() && (line = jobs.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            inFlight.acquire();
+            submit(line, ++count, abandoned).whenComplete((result, throwable) -> {
+                try {
+                    serialized.accept(result);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(maxInFlight);
+        return count;
+    }
+
+    public CompletableFuture<String> submit(String jobLine, int lineNumber) {
+        return submit(jobLine, lineNumber, () -> false);
+    }
+
+    private CompletableFuture<String> submit(String jobLine, int lineNumber, BooleanSupplier abandoned) {
+        Object[] id = {lineNumber};
+        boolean[] compile = {false};
+        return CompletableFuture.supplyAsync(() -> {
+                    Map<String, Object> job = Json.parseObject(jobLine);
+                    if (job.containsKey("id") && !(job.get("id") instanceof Map)) {
+                        id[0] = job.get("id");
+                    }
+                    compile[0] = "compile".equals(job.get("mode"));
+                    Object src = job.get("src");
+                    if (!(src instanceof String)) {
+                        throw new IllegalArgumentException("Missing \"src\"");
+                    }
+                    TokenList tokens = Metrics.measure(Metrics.Phase.TOKENIZE, () -> new CatScriptTokenizer((String) src).getTokens());
+                    Metrics.recordTokenCount(tokens.size());
+                    return tokens;
+                }, tokenizeStage)
+                .thenApplyAsync(tokens -> new CatScriptParser().parse(tokens), parseStage)
+                .thenApplyAsync(program -> {
+                    program.verify();
+                    program.optimize();
+                    return program;
+                }, verifyStage)
+                .thenApplyAsync(program -> {
+                    if (abandoned.getAsBoolean()) {
+                        throw new CancellationException("Batch was abandoned");
+                    }
+                    ExecutionContext context = new ExecutionContext(null, ExecutionBudget.fromSystemProperties(timeoutMillis));
+                    if (compile[0]) {
+                        CompiledProgram compiled = new ByteCodeGenerator(program).compileProgram();
+                        Metrics.measure(Metrics.Phase.EXECUTE, () -> compiled.execute(context));
+                    } else {
+                        program.setContext(context);
+                        Metrics.measure(Metrics.Phase.EXECUTE, () -> program.execute());
+                    }
+                    return context.getOutput();
+                }, executeStage)
+                .handle((output, throwable) -> {
+                    String idJson = id[0] instanceof String ? Json.quote((String) id[0]) : String.valueOf(id[0]);
+                    if (throwable == null) {
+                        return "{\"id\":" + idJson + ",\"ok\":true,\"output\":" + Json.quote(output) + "}";
+                    }
+                    Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                    return "{\"id\":" + idJson + ",\"ok\":false,\"error\":" + Json.quote(String.valueOf(cause.getMessage())) + "}";
+                });
+    }
+}
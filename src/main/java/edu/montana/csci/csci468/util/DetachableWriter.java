@@ -0,0 +1,55 @@
+package edu.montana.csci.csci468.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// A writer that one thread writes through and another can cut off.  Streamed server runs
+// print from a ScriptExecutor worker straight into the response, but the request thread may
+// give up on the worker (a timeout) and return; detach() waits out a write in progress and
+// then makes every later write fail, so the worker never touches a response the container
+// has already finished with.
+public class DetachableWriter extends Writer {
+
+    private final Writer out;
+    private boolean detached;
+
+    public DetachableWriter(Writer out) {
+        this.out = out;
+    }
+
+    // the underlying writer, for the detaching thread to finish the response with
+    public synchronized Writer detach() {
+        detached = true;
+        return out;
+    }
+
+    @Override
+    public synchronized void write(char[] chars, int offset, int length) throws IOException {
+        ensureAttached();
+        out.write(chars, offset, length);
+    }
+
+    @Override
+    public synchronized void write(String text, int offset, int length) throws IOException {
+        ensureAttached();
+        out.write(text, offset, length);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        ensureAttached();
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        ensureAttached();
+        out.close();
+    }
+
+    private void ensureAttached() throws IOException {
+        if (detached) {
+            throw new IOException("Output was detached");
+        }
+    }
+}
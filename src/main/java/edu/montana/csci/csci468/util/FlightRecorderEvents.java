@@ -0,0 +1,233 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.bytecode.CompiledProgram;
+import edu.montana.csci.csci468.eval.BudgetExceededException;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.eval.ExecutionContext;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.tokenizer.TokenList;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Java Flight Recorder events for the compiler phases and for script runs, so they show up
+// next to GC and JIT activity in the recordings production already takes.  Enable them with
+// the catscript.* event names in a .jfc settings file, or all at once with
+// -XX:StartFlightRecording.  Events are created unconditionally: until a recording enables
+// them, begin, end and commit are empty and shouldCommit is false, so the JIT reduces them
+// to nothing and the fields below are never filled in.
+public class FlightRecorderEvents {
+
+    static final String CATEGORY = "CatScript";
+
+    // the event for a Metrics phase; executions have their own, see execute
+    static PhaseEvent forPhase(Metrics.Phase phase) {
+        switch (phase) {
+            case TOKENIZE: return new TokenizeEvent();
+            case PARSE: return new ParseEvent();
+            case VERIFY: return new VerifyEvent();
+            case CODEGEN: return new CodeGenerationEvent("jvm");
+            case TRANSPILE: return new CodeGenerationEvent("javascript");
+            case CLASS_LOAD: return new ClassDefinitionEvent();
+            default: return null;
+        }
+    }
+
+    // brackets one execution of a program: call abortExecution when it throws and
+    // endExecution in a finally block.  There is no Runnable taking variant because wrapping
+    // the interpreter's top level in a lambda cost it escape analysis in the hot path.
+    public static ScriptExecutionEvent beginExecution(String backend, int statements,
+                                                      ExecutionContext context, ExecutionBudget budget) {
+        ScriptExecutionEvent event = new ScriptExecutionEvent();
+        event.backend = backend;
+        event.statements = statements;
+        event.context = context;
+        event.budget = budget;
+        event.startSteps = budget.getSteps();
+        event.startOutput = context.getOutputLength();
+        event.begin();
+        return event;
+    }
+
+    // records why the run stopped
+    public static void abortExecution(ScriptExecutionEvent event, Throwable e) {
+        event.aborted = true;
+        ScriptAbortEvent abort = new ScriptAbortEvent();
+        if (abort.shouldCommit()) {
+            abort.backend = event.backend;
+            abort.reason = e instanceof BudgetExceededException ?
+                    ((BudgetExceededException) e).getKind().name().toLowerCase() : "error";
+            abort.exception = e.getClass().getName();
+            abort.message = e.getMessage();
+            abort.steps = event.budget.getSteps() - event.startSteps;
+            abort.commit();
+        }
+    }
+
+    public static void endExecution(ScriptExecutionEvent event) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.steps = event.budget.getSteps() - event.startSteps;
+            event.outputCharacters = event.context.getOutputLength() - event.startOutput;
+            event.commit();
+        }
+    }
+
+    @Category({CATEGORY, "Compiler"})
+    abstract static class PhaseEvent extends Event {
+        @Label("Failed")
+        boolean failed;
+
+        @Label("Allocated")
+        @Description("Bytes the thread allocated during the phase")
+        @DataAmount
+        long allocatedBytes;
+
+        // fills in the fields of a successful phase from what it returned
+        void describe(Object result) {
+        }
+
+        void finish(Object result, boolean failed, long allocatedBytes) {
+            end();
+            if (shouldCommit()) {
+                this.failed = failed;
+                this.allocatedBytes = allocatedBytes;
+                if (!failed) {
+                    describe(result);
+                }
+                commit();
+            }
+        }
+    }
+
+    @Name("catscript.Tokenize")
+    @Label("Tokenize")
+    static class TokenizeEvent extends PhaseEvent {
+        @Label("Tokens")
+        int tokens;
+
+        @Override
+        void describe(Object result) {
+            tokens = ((TokenList) result).size();
+        }
+    }
+
+    @Name("catscript.Parse")
+    @Label("Parse")
+    static class ParseEvent extends PhaseEvent {
+        @Label("Statements")
+        @Description("Top level statements in the program")
+        int statements;
+
+        @Override
+        void describe(Object result) {
+            statements = ((CatScriptProgram) result).getStatementCount();
+        }
+    }
+
+    @Name("catscript.Verify")
+    @Label("Verify")
+    static class VerifyEvent extends PhaseEvent {
+        @Label("Nodes")
+        @Description("Parse tree nodes checked")
+        int nodes;
+
+        @Override
+        void describe(Object result) {
+            nodes = (Integer) result;
+        }
+    }
+
+    @Name("catscript.CodeGeneration")
+    @Label("Code Generation")
+    static class CodeGenerationEvent extends PhaseEvent {
+        @Label("Target")
+        String target;
+
+        @Label("Bytecode Size")
+        @DataAmount
+        int bytecodeSize;
+
+        CodeGenerationEvent(String target) {
+            this.target = target;
+        }
+
+        @Override
+        void describe(Object result) {
+            if (result instanceof byte[]) {
+                bytecodeSize = ((byte[]) result).length;
+            }
+        }
+    }
+
+    @Name("catscript.ClassDefinition")
+    @Label("Class Definition")
+    static class ClassDefinitionEvent extends PhaseEvent {
+        @Label("Class Name")
+        String className;
+
+        @Label("Bytecode Size")
+        @DataAmount
+        int bytecodeSize;
+
+        @Override
+        void describe(Object result) {
+            CompiledProgram compiled = (CompiledProgram) result;
+            className = compiled.getProgramClass().getName();
+            bytecodeSize = compiled.getClassSize();
+        }
+    }
+
+    @Name("catscript.ScriptExecution")
+    @Label("Script Execution")
+    @Category({CATEGORY, "Execution"})
+    public static class ScriptExecutionEvent extends Event {
+        @Label("Backend")
+        String backend;
+
+        @Label("Statements")
+        @Description("Top level statements in the program")
+        int statements;
+
+        @Label("Steps")
+        @Description("Loop iterations and function calls counted against the budget")
+        long steps;
+
+        @Label("Output Characters")
+        long outputCharacters;
+
+        @Label("Aborted")
+        boolean aborted;
+
+        // where the run started, not recorded
+        private transient ExecutionContext context;
+        private transient ExecutionBudget budget;
+        private transient long startSteps;
+        private transient long startOutput;
+    }
+
+    @Name("catscript.ScriptAbort")
+    @Label("Script Abort")
+    @Description("A script run stopped by its budget or by an error")
+    @Category({CATEGORY, "Execution"})
+    static class ScriptAbortEvent extends Event {
+        @Label("Backend")
+        String backend;
+
+        @Label("Reason")
+        @Description("The budget that ran out (steps, time, list_size, call_depth) or error")
+        String reason;
+
+        @Label("Exception")
+        String exception;
+
+        @Label("Message")
+        String message;
+
+        @Label("Steps")
+        long steps;
+    }
+}
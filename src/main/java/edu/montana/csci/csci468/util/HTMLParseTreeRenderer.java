@@ -2,24 +2,131 @@ package edu.montana.csci.csci468.util;
 
 import edu.montana.csci.csci468.parser.ParseElement;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Renders a parse tree as nested lists, writing straight to the given Appendable.  Subtrees
+// below maxDepth are collapsed into a single summary item, and once maxNodes items have
+// been written the rest of each remaining list is summarized as well.  The summary counts
+// come from subtree sizes computed in one iterative pass the first time one is needed, so
+// collapsing stays linear and deep trees don't overflow the stack.
 public class HTMLParseTreeRenderer  {
 
+    public static final int DEFAULT_MAX_DEPTH = 64;
+    public static final int DEFAULT_MAX_NODES = 10_000;
+
+    private final ParseElement root;
+    private final Appendable out;
+    private final int maxDepth;
+    private final int maxNodes;
+    private int rendered;
+    private Map<ParseElement, Integer> subtreeSizes;
+
+    private HTMLParseTreeRenderer(ParseElement root, Appendable out, int maxDepth, int maxNodes) {
+        this.root = root;
+        this.out = out;
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+    }
+
     public static String render(ParseElement root) {
-        StringBuilder buffer = new StringBuilder("<ul>");
-        renderElement(buffer, root);
-        buffer.append("</ul>");
+        StringBuilder buffer = new StringBuilder();
+        render(root, buffer, Integer.MAX_VALUE, Integer.MAX_VALUE);
         return buffer.toString();
     }
 
-    private static void renderElement(StringBuilder buffer, ParseElement root) {
-        buffer.append("<li>");
-        buffer.append(root.toString());
-        buffer.append("<ul>");
-        for (ParseElement child : root.getChildren()) {
-            renderElement(buffer, child);
+    public static void render(ParseElement root, Appendable out, int maxDepth, int maxNodes) {
+        try {
+            HTMLParseTreeRenderer renderer = new HTMLParseTreeRenderer(root, out, maxDepth, maxNodes);
+            out.append("<ul>");
+            renderer.renderElement(root, 0);
+            out.append("</ul>");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void renderElement(ParseElement root, int depth) throws IOException {
+        rendered++;
+        out.append("<li>");
+        appendEscaped(root.toString());
+        if (!root.getChildren().isEmpty()) {
+            out.append("<ul>");
+            if (depth + 1 >= maxDepth) {
+                renderCollapsed(sizeOf(root) - 1);
+            } else {
+                int index = 0;
+                for (ParseElement child : root.getChildren()) {
+                    if (rendered >= maxNodes) {
+                        int omitted = 0;
+                        for (ParseElement rest : root.getChildren().subList(index, root.getChildren().size())) {
+                            omitted += sizeOf(rest);
+                        }
+                        renderCollapsed(omitted);
+                        break;
+                    }
+                    renderElement(child, depth + 1);
+                    index++;
+                }
+            }
+            out.append("</ul>");
+        }
+        out.append("</li>");
+    }
+
+    private void renderCollapsed(int nodes) throws IOException {
+        out.append("<li class=\"collapsed\">&hellip; ").append(String.valueOf(nodes))
+                .append(nodes == 1 ? " node" : " nodes").append(" not shown</li>");
+    }
+
+    private int sizeOf(ParseElement element) {
+        if (subtreeSizes == null) {
+            subtreeSizes = subtreeSizes(root);
+        }
+        return subtreeSizes.get(element);
+    }
+
+    // pre-order with an explicit stack, then sizes in reverse so children come before parents
+    static Map<ParseElement, Integer> subtreeSizes(ParseElement root) {
+        List<ParseElement> preOrder = new ArrayList<>();
+        Deque<ParseElement> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            ParseElement element = stack.pop();
+            preOrder.add(element);
+            for (ParseElement child : element.getChildren()) {
+                stack.push(child);
+            }
+        }
+        Map<ParseElement, Integer> sizes = new IdentityHashMap<>(preOrder.size() * 2);
+        for (int i = preOrder.size() - 1; i >= 0; i--) {
+            ParseElement element = preOrder.get(i);
+            int size = 1;
+            for (ParseElement child : element.getChildren()) {
+                size += sizes.get(child);
+            }
+            sizes.put(element, size);
+        }
+        return sizes;
+    }
+
+    private void appendEscaped(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<': out.append("&lt;"); break;
+                case '>': out.append("&gt;"); break;
+                case '&': out.append("&amp;"); break;
+                case '"': out.append("&quot;"); break;
+                default: out.append(c);
+            }
         }
-        buffer.append("</ul>");
-        buffer.append("<l/i>");
     }
 
 }
@@ -0,0 +1,139 @@
+package edu.montana.csci.csci468.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Process-wide metrics for the compiler pipeline.  Every phase records its wall time and the
+// bytes the current thread allocated while running it, failures are counted per phase, and
+// the whole registry renders as Prometheus text for the /metrics endpoint.
+public class Metrics {
+
+    public enum Phase {
+        TOKENIZE, PARSE, VERIFY, TRANSPILE, CODEGEN, CLASS_LOAD, EXECUTE;
+
+        String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final double[] SECONDS = {0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10};
+    private static final double[] BYTES = {1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9};
+    private static final double[] SIZES = {10, 100, 1e3, 1e4, 1e5, 1e6};
+
+    private static final Map<Phase, Histogram> durations = new EnumMap<>(Phase.class);
+    private static final Map<Phase, Histogram> allocations = new EnumMap<>(Phase.class);
+    private static final Map<Phase, LongAdder> errors = new EnumMap<>(Phase.class);
+    private static final Histogram tokens = new Histogram(SIZES);
+    private static final Histogram nodes = new Histogram(SIZES);
+
+    private static final com.sun.management.ThreadMXBean allocationBean = allocationBean();
+
+    static {
+        for (Phase phase : Phase.values()) {
+            durations.put(phase, new Histogram(SECONDS));
+            allocations.put(phase, new Histogram(BYTES));
+            errors.put(phase, new LongAdder());
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean;
+            }
+        }
+        return null;
+    }
+
+    // bytes the current thread has allocated so far, always 0 when the JVM can't tell
+    public static long allocatedBytes() {
+        return allocationBean == null ? 0 : allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // also recorded as the phase's flight recorder event, see FlightRecorderEvents
+    public static <T> T measure(Phase phase, Supplier<T> work) {
+        FlightRecorderEvents.PhaseEvent event = FlightRecorderEvents.forPhase(phase);
+        if (event != null) {
+            event.begin();
+        }
+        long startNanos = System.nanoTime();
+        long startBytes = allocatedBytes();
+        T result = null;
+        boolean failed = true;
+        try {
+            result = work.get();
+            failed = false;
+            return result;
+        } catch (RuntimeException | Error e) {
+            errors.get(phase).increment();
+            throw e;
+        } finally {
+            durations.get(phase).observe((System.nanoTime() - startNanos) / 1e9);
+            long allocated = allocatedBytes() - startBytes;
+            if (allocationBean != null) {
+                allocations.get(phase).observe(allocated);
+            }
+            if (event != null) {
+                event.finish(result, failed, allocated);
+            }
+        }
+    }
+
+    public static void measure(Phase phase, Runnable work) {
+        measure(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static void recordTokenCount(int count) {
+        tokens.observe(count);
+    }
+
+    public static void recordNodeCount(int count) {
+        nodes.observe(count);
+    }
+
+    public static Histogram getDuration(Phase phase) {
+        return durations.get(phase);
+    }
+
+    public static long getErrorCount(Phase phase) {
+        return errors.get(phase).sum();
+    }
+
+    public static String renderPrometheus() {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP catscript_phase_duration_seconds Wall time spent in each compiler phase\n");
+        out.append("# TYPE catscript_phase_duration_seconds histogram\n");
+        for (Phase phase : Phase.values()) {
+            durations.get(phase).render(out, "catscript_phase_duration_seconds", "phase=\"" + phase.label() + "\"");
+        }
+        if (allocationBean != null) {
+            out.append("# HELP catscript_phase_allocated_bytes Bytes allocated by the running thread in each phase\n");
+            out.append("# TYPE catscript_phase_allocated_bytes histogram\n");
+            for (Phase phase : Phase.values()) {
+                allocations.get(phase).render(out, "catscript_phase_allocated_bytes", "phase=\"" + phase.label() + "\"");
+            }
+        }
+        out.append("# HELP catscript_phase_errors_total Phase runs that ended in an exception\n");
+        out.append("# TYPE catscript_phase_errors_total counter\n");
+        for (Phase phase : Phase.values()) {
+            out.append("catscript_phase_errors_total{phase=\"").append(phase.label()).append("\"} ")
+                    .append(errors.get(phase).sum()).append('\n');
+        }
+        out.append("# HELP catscript_tokens Tokens per tokenized program\n");
+        out.append("# TYPE catscript_tokens histogram\n");
+        tokens.render(out, "catscript_tokens", "");
+        out.append("# HELP catscript_parse_nodes Parse tree nodes per verified program\n");
+        out.append("# TYPE catscript_parse_nodes histogram\n");
+        nodes.render(out, "catscript_parse_nodes", "");
+        return out.toString();
+    }
+}
@@ -0,0 +1,18 @@
+package edu.montana.csci.csci468.util;
+
+import java.util.concurrent.RejectedExecutionException;
+
+// Work turned away because the server is at capacity, with a hint for when to try again
+public class OverloadedException extends RejectedExecutionException {
+
+    private final int retryAfterSeconds;
+
+    public OverloadedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,124 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.parser.ParseElement;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// LRU cache of rendered parse trees keyed by a SHA-256 of the source.  A miss renders
+// straight to the caller's output and keeps a copy only while it stays under
+// maxEntryChars, so large trees are streamed but never cached.
+public class ParseTreeCache {
+
+    public static final String MAX_ENTRIES_PROPERTY = "catscript.parseCache.maxEntries";
+    public static final String MAX_ENTRY_CHARS_PROPERTY = "catscript.parseCache.maxEntryChars";
+
+    private static ParseTreeCache defaultCache;
+
+    private final int maxDepth;
+    private final int maxNodes;
+    private final int maxEntryChars;
+    private final Map<String, String> entries;
+
+    public ParseTreeCache(int maxEntries, int maxEntryChars, int maxDepth, int maxNodes) {
+        this.maxEntryChars = maxEntryChars;
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static synchronized ParseTreeCache getDefault() {
+        if (defaultCache == null) {
+            defaultCache = new ParseTreeCache(Integer.getInteger(MAX_ENTRIES_PROPERTY, 1024),
+                    Integer.getInteger(MAX_ENTRY_CHARS_PROPERTY, 64 * 1024),
+                    HTMLParseTreeRenderer.DEFAULT_MAX_DEPTH, HTMLParseTreeRenderer.DEFAULT_MAX_NODES);
+        }
+        return defaultCache;
+    }
+
+    // returns true on a cache hit
+    public boolean render(String source, Supplier<ParseElement> parse, Appendable out) {
+        String key = Hashes.sha256(source);
+        String cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        try {
+            if (cached != null) {
+                out.append(cached);
+                return true;
+            }
+            CappedCopy copy = new CappedCopy(out, maxEntryChars);
+            HTMLParseTreeRenderer.render(parse.get(), copy, maxDepth, maxNodes);
+            if (copy.buffer != null) {
+                synchronized (entries) {
+                    entries.put(key, copy.buffer.toString());
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // passes everything through and keeps a copy until it grows past the cap
+    private static class CappedCopy implements Appendable {
+        private final Appendable out;
+        private final int cap;
+        private StringBuilder buffer = new StringBuilder();
+
+        CappedCopy(Appendable out, int cap) {
+            this.out = out;
+            this.cap = cap;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            out.append(csq);
+            copy(csq);
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            return append(csq.subSequence(start, end));
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            out.append(c);
+            if (buffer != null) {
+                if (buffer.length() + 1 > cap) {
+                    buffer = null;
+                } else {
+                    buffer.append(c);
+                }
+            }
+            return this;
+        }
+
+        private void copy(CharSequence csq) {
+            if (buffer != null) {
+                if (buffer.length() + csq.length() > cap) {
+                    buffer = null;
+                } else {
+                    buffer.append(csq);
+                }
+            }
+        }
+    }
+}
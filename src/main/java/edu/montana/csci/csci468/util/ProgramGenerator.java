@@ -0,0 +1,527 @@
+package edu.montana.csci.csci468.util;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+// Seeded, grammar driven generator of well typed CatScript programs for benchmarks and soak
+// tests.  The same seed and settings always produce the same source.  Programs are built so
+// every backend runs them to completion with the same output:
+//
+//   - every name is fresh, so nothing is ever shadowed or declared twice
+//   - function bodies only see their own parameters and locals
+//   - a function calls at most one earlier function, outside of loops, so call chains stay
+//     linear and nothing recurses
+//   - division is always by a positive literal and only ints, strings and bools are printed
+//   - == and != only compare bools, the one type every backend compares by value
+//
+// Loops nest up to maxDepth over lists of up to maxListSize elements, so the work done grows
+// as maxListSize ^ maxDepth; the source size grows with statements and functions.
+public class ProgramGenerator {
+
+    private enum Type {
+        INT("int"), STRING("string"), BOOL("bool"), LIST("list<int>");
+
+        private final String name;
+
+        Type(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final Type[] VALUE_TYPES = {Type.INT, Type.STRING, Type.BOOL};
+    private static final int PRINT_WEIGHT = 3;
+    private static final int VAR_WEIGHT = 3;
+    private static final int ASSIGN_WEIGHT = 2;
+
+    private final long seed;
+    private int statements = 50;
+    private int functions = 5;
+    private int maxDepth = 3;
+    private int maxBlockSize = 4;
+    private int maxExpressionDepth = 3;
+    private int maxListSize = 5;
+    private int maxParameters = 3;
+    private int forWeight = 2;
+    private int ifWeight = 2;
+    private int callWeight = 2;
+
+    // per generate() call
+    private Random random;
+    private StringBuilder out;
+    private int indent;
+    private int names;
+    private LinkedList<List<Variable>> scopes;
+    private List<Function> declared;
+    private int callableFunctions;
+    private boolean inFunction;
+    private boolean callAvailable;
+    private boolean assigningString;
+    private int loopDepth;
+
+    public ProgramGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    // top level statements, not counting function definitions
+    public ProgramGenerator setStatements(int statements) {
+        this.statements = statements;
+        return this;
+    }
+
+    public ProgramGenerator setFunctions(int functions) {
+        this.functions = functions;
+        return this;
+    }
+
+    // how deeply for and if statements nest
+    public ProgramGenerator setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    // statements in each for, if, else and function body
+    public ProgramGenerator setMaxBlockSize(int maxBlockSize) {
+        this.maxBlockSize = maxBlockSize;
+        return this;
+    }
+
+    public ProgramGenerator setMaxExpressionDepth(int maxExpressionDepth) {
+        this.maxExpressionDepth = maxExpressionDepth;
+        return this;
+    }
+
+    public ProgramGenerator setMaxListSize(int maxListSize) {
+        this.maxListSize = maxListSize;
+        return this;
+    }
+
+    public ProgramGenerator setMaxParameters(int maxParameters) {
+        this.maxParameters = maxParameters;
+        return this;
+    }
+
+    // relative weights of for, if and function call statements; print, var and assignment
+    // statements weigh 3, 3 and 2
+    public ProgramGenerator setStatementMix(int forWeight, int ifWeight, int callWeight) {
+        this.forWeight = forWeight;
+        this.ifWeight = ifWeight;
+        this.callWeight = callWeight;
+        return this;
+    }
+
+    public String generate() {
+        random = new Random(seed);
+        out = new StringBuilder();
+        indent = 0;
+        names = 0;
+        scopes = new LinkedList<>();
+        declared = new ArrayList<>();
+        loopDepth = 0;
+
+        inFunction = true;
+        for (int i = 0; i < functions; i++) {
+            generateFunction(i);
+        }
+        inFunction = false;
+        callAvailable = true;
+        callableFunctions = declared.size();
+        scopes.push(new ArrayList<>());
+        for (int i = 0; i < statements; i++) {
+            generateStatement(0);
+        }
+        scopes.pop();
+        return out.toString();
+    }
+
+    //==============================================================
+    // Statements
+    //==============================================================
+
+    private void generateFunction(int index) {
+        Function function = new Function("f" + index);
+        int parameterCount = random.nextInt(maxParameters + 1);
+        for (int i = 0; i < parameterCount; i++) {
+            function.parameters.add(VALUE_TYPES[random.nextInt(VALUE_TYPES.length)]);
+        }
+        function.returnType = random.nextInt(4) == 0 ? null : VALUE_TYPES[random.nextInt(VALUE_TYPES.length)];
+
+        // bodies only see earlier functions, and call at most one of them
+        callableFunctions = index;
+        callAvailable = true;
+        scopes.clear();
+        scopes.push(new ArrayList<>());
+        line().append("function ").append(function.name).append("(");
+        for (int i = 0; i < function.parameters.size(); i++) {
+            Variable parameter = declare(function.parameters.get(i), true);
+            out.append(i == 0 ? "" : ", ").append(parameter.name).append(" : ").append(parameter.type.name);
+        }
+        out.append(")");
+        if (function.returnType != null) {
+            out.append(" : ").append(function.returnType.name);
+        }
+        out.append(" {\n");
+        indent++;
+        int bodySize = random.nextInt(maxBlockSize + 1);
+        for (int i = 0; i < bodySize; i++) {
+            generateStatement(0);
+        }
+        if (function.returnType != null) {
+            line().append("return ");
+            generateExpression(function.returnType, maxExpressionDepth);
+            out.append("\n");
+        }
+        indent--;
+        line().append("}\n");
+        scopes.pop();
+        declared.add(function);
+    }
+
+    private void generateStatement(int depth) {
+        boolean nest = depth < maxDepth;
+        List<Variable> assignable = assignableVariables();
+        List<Function> procedures = callAvailable ? callable(null) : List.of();
+        int forChance = nest ? forWeight : 0;
+        int ifChance = nest ? ifWeight : 0;
+        int callChance = procedures.isEmpty() ? 0 : callWeight;
+        int assignChance = assignable.isEmpty() ? 0 : ASSIGN_WEIGHT;
+        int choice = random.nextInt(PRINT_WEIGHT + VAR_WEIGHT + assignChance + forChance + ifChance + callChance);
+
+        if ((choice -= PRINT_WEIGHT) < 0) {
+            line().append("print(");
+            generateExpression(VALUE_TYPES[random.nextInt(VALUE_TYPES.length)], maxExpressionDepth);
+            out.append(")\n");
+        } else if ((choice -= VAR_WEIGHT) < 0) {
+            Type type = Type.values()[random.nextInt(Type.values().length)];
+            // the initializer is generated before the name is in scope
+            String name = "v" + names++;
+            line().append("var ").append(name);
+            if (type == Type.LIST || random.nextBoolean()) {
+                out.append(" : ").append(type.name);
+            }
+            out.append(" = ");
+            generateExpression(type, maxExpressionDepth);
+            out.append("\n");
+            scopes.peek().add(new Variable(name, type, true));
+        } else if ((choice -= assignChance) < 0) {
+            Variable variable = assignable.get(random.nextInt(assignable.size()));
+            line().append(variable.name).append(" = ");
+            // reassigned strings never read string variables, so loops can't keep doubling them
+            assigningString = variable.type == Type.STRING;
+            generateExpression(variable.type, maxExpressionDepth);
+            assigningString = false;
+            out.append("\n");
+        } else if ((choice -= forChance) < 0) {
+            String name = "v" + names++;
+            line().append("for (").append(name).append(" in ");
+            generateExpression(Type.LIST, maxExpressionDepth);
+            out.append(") {\n");
+            scopes.push(new ArrayList<>());
+            scopes.peek().add(new Variable(name, Type.INT, false));
+            loopDepth++;
+            generateBlock(depth + 1);
+            loopDepth--;
+            scopes.pop();
+            line().append("}\n");
+        } else if ((choice -= ifChance) < 0) {
+            line();
+            generateIf(depth);
+        } else {
+            Function function = procedures.get(random.nextInt(procedures.size()));
+            line();
+            generateCall(function);
+            out.append("\n");
+        }
+    }
+
+    private void generateIf(int depth) {
+        out.append("if (");
+        generateExpression(Type.BOOL, maxExpressionDepth);
+        out.append(") {\n");
+        generateScopedBlock(depth + 1);
+        int elseKind = random.nextInt(3);
+        if (elseKind == 1) {
+            line().append("} else {\n");
+            generateScopedBlock(depth + 1);
+        } else if (elseKind == 2 && depth + 1 < maxDepth) {
+            line().append("} else ");
+            generateIf(depth + 1);
+            return;
+        }
+        line().append("}\n");
+    }
+
+    private void generateScopedBlock(int depth) {
+        scopes.push(new ArrayList<>());
+        generateBlock(depth);
+        scopes.pop();
+    }
+
+    private void generateBlock(int depth) {
+        indent++;
+        int size = 1 + random.nextInt(Math.max(1, maxBlockSize));
+        for (int i = 0; i < size; i++) {
+            generateStatement(depth);
+        }
+        indent--;
+    }
+
+    //==============================================================
+    // Expressions
+    //==============================================================
+
+    private void generateExpression(Type type, int depth) {
+        switch (type) {
+            case INT: generateInt(depth); break;
+            case STRING: generateString(depth); break;
+            case BOOL: generateBool(depth); break;
+            case LIST: generateList(depth); break;
+        }
+    }
+
+    private void generateInt(int depth) {
+        int choice = depth <= 0 ? random.nextInt(3) : random.nextInt(10);
+        switch (choice) {
+            case 0:
+            case 1:
+                if (leaf(Type.INT)) {
+                    return;
+                }
+                // falls through: nothing of the type in scope, so write a literal instead
+            case 2:
+                out.append(random.nextInt(100));
+                return;
+            case 3:
+            case 4:
+                binary(Type.INT, random.nextBoolean() ? " + " : " - ", Type.INT, depth);
+                return;
+            case 5:
+                binary(Type.INT, " * ", Type.INT, depth);
+                return;
+            case 6:
+                out.append("(");
+                generateInt(depth - 1);
+                out.append(" / ").append(1 + random.nextInt(9)).append(")");
+                return;
+            case 7:
+                out.append("-");
+                operand(Type.INT, depth);
+                return;
+            default:
+                if (!call(Type.INT, depth)) {
+                    generateInt(depth - 1);
+                }
+        }
+    }
+
+    private void generateString(int depth) {
+        int choice = depth <= 0 ? random.nextInt(3) : random.nextInt(8);
+        switch (choice) {
+            case 0:
+            case 1:
+                if (leaf(Type.STRING)) {
+                    return;
+                }
+                // falls through: nothing of the type in scope, so write a literal instead
+            case 2:
+                out.append("\"s").append(random.nextInt(1000)).append("\"");
+                return;
+            case 3:
+            case 4:
+                binary(Type.STRING, " + ", Type.STRING, depth);
+                return;
+            case 5:
+                binary(Type.STRING, " + ", Type.INT, depth);
+                return;
+            default:
+                if (!call(Type.STRING, depth)) {
+                    generateString(depth - 1);
+                }
+        }
+    }
+
+    private void generateBool(int depth) {
+        int choice = depth <= 0 ? random.nextInt(3) : random.nextInt(9);
+        switch (choice) {
+            case 0:
+            case 1:
+                if (leaf(Type.BOOL)) {
+                    return;
+                }
+                // falls through: nothing of the type in scope, so write a literal instead
+            case 2:
+                out.append(random.nextBoolean());
+                return;
+            case 3:
+            case 4:
+                String[] comparisons = {" < ", " <= ", " > ", " >= "};
+                binary(Type.INT, comparisons[random.nextInt(comparisons.length)], Type.INT, depth);
+                return;
+            case 5:
+                binary(Type.BOOL, random.nextBoolean() ? " == " : " != ", Type.BOOL, depth);
+                return;
+            case 6:
+                out.append("not ");
+                operand(Type.BOOL, depth);
+                return;
+            default:
+                if (!call(Type.BOOL, depth)) {
+                    generateBool(depth - 1);
+                }
+        }
+    }
+
+    private void generateList(int depth) {
+        if (random.nextInt(3) == 0 && leaf(Type.LIST)) {
+            return;
+        }
+        int size = 1 + random.nextInt(Math.max(1, maxListSize));
+        out.append("[");
+        for (int i = 0; i < size; i++) {
+            out.append(i == 0 ? "" : ", ");
+            generateInt(Math.min(depth - 1, 1));
+        }
+        out.append("]");
+    }
+
+    // operands of binary and unary operators are parenthesized unless they are simple
+    private void binary(Type left, String operator, Type right, int depth) {
+        operand(left, depth);
+        out.append(operator);
+        operand(right, depth);
+    }
+
+    private void operand(Type type, int depth) {
+        int start = out.length();
+        generateExpression(type, depth - 1);
+        if (!isSimple(start)) {
+            out.insert(start, '(').append(')');
+        }
+    }
+
+    private boolean isSimple(int start) {
+        for (int i = start; i < out.length(); i++) {
+            char c = out.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '"') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean leaf(Type type) {
+        List<Variable> candidates = new ArrayList<>();
+        if (assigningString && type == Type.STRING) {
+            return false;
+        }
+        for (List<Variable> scope : scopes) {
+            for (Variable variable : scope) {
+                if (variable.type == type) {
+                    candidates.add(variable);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return false;
+        }
+        out.append(candidates.get(random.nextInt(candidates.size())).name);
+        return true;
+    }
+
+    private boolean call(Type type, int depth) {
+        if (!callAvailable) {
+            return false;
+        }
+        List<Function> candidates = callable(type);
+        if (candidates.isEmpty()) {
+            return false;
+        }
+        Function function = candidates.get(random.nextInt(candidates.size()));
+        generateCall(function, depth);
+        return true;
+    }
+
+    private void generateCall(Function function) {
+        generateCall(function, maxExpressionDepth);
+    }
+
+    private void generateCall(Function function, int depth) {
+        if (inFunction) {
+            callAvailable = false;
+        }
+        out.append(function.name).append("(");
+        for (int i = 0; i < function.parameters.size(); i++) {
+            out.append(i == 0 ? "" : ", ");
+            generateExpression(function.parameters.get(i), depth - 1);
+        }
+        out.append(")");
+    }
+
+    //==============================================================
+    // Helpers
+    //==============================================================
+
+    // functions with the given return type, or procedures for null; function bodies never
+    // call from inside a loop
+    private List<Function> callable(Type returnType) {
+        List<Function> candidates = new ArrayList<>();
+        if (inFunction && loopDepth > 0) {
+            return candidates;
+        }
+        for (int i = 0; i < callableFunctions; i++) {
+            Function function = declared.get(i);
+            if (function.returnType == returnType) {
+                candidates.add(function);
+            }
+        }
+        return candidates;
+    }
+
+    private List<Variable> assignableVariables() {
+        List<Variable> assignable = new ArrayList<>();
+        for (List<Variable> scope : scopes) {
+            for (Variable variable : scope) {
+                if (variable.assignable) {
+                    assignable.add(variable);
+                }
+            }
+        }
+        return assignable;
+    }
+
+    private Variable declare(Type type, boolean assignable) {
+        Variable variable = new Variable("v" + names++, type, assignable);
+        scopes.peek().add(variable);
+        return variable;
+    }
+
+    private StringBuilder line() {
+        for (int i = 0; i < indent; i++) {
+            out.append("  ");
+        }
+        return out;
+    }
+
+    private static class Variable {
+        private final String name;
+        private final Type type;
+        private final boolean assignable;
+
+        Variable(String name, Type type, boolean assignable) {
+            this.name = name;
+            this.type = type;
+            this.assignable = assignable;
+        }
+    }
+
+    private static class Function {
+        private final String name;
+        private final List<Type> parameters = new ArrayList<>();
+        private Type returnType;
+
+        Function(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package edu.montana.csci.csci468.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Structured request log.  Request threads only build a small event map and offer it to a
+// bounded ring buffer; a single daemon thread formats events as JSON lines and writes them
+// out.  When the buffer is full events are dropped and counted rather than blocking the
+// request, and the drop count is reported in the stream once there is room again.
+// Successful requests are sampled, errors are always logged, and parameter values are
+// truncated so a large script in `src` doesn't end up in the log in full.
+public class RequestLog {
+
+    public static final String SAMPLE_RATE_PROPERTY = "catscript.log.sampleRate";
+    public static final String MAX_PARAM_LENGTH_PROPERTY = "catscript.log.maxParamLength";
+    public static final String CAPACITY_PROPERTY = "catscript.log.capacity";
+
+    private static RequestLog defaultLog;
+
+    private final ArrayBlockingQueue<Map<String, Object>> buffer;
+    private final Writer out;
+    private final double sampleRate;
+    private final int maxParamLength;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    public RequestLog(Writer out, int capacity, double sampleRate, int maxParamLength) {
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.out = out;
+        this.sampleRate = sampleRate;
+        this.maxParamLength = maxParamLength;
+        Thread writer = new Thread(this::drain, "catscript-request-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static synchronized RequestLog getDefault() {
+        if (defaultLog == null) {
+            Writer stdout = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            defaultLog = new RequestLog(stdout,
+                    Integer.getInteger(CAPACITY_PROPERTY, 8192),
+                    Double.parseDouble(System.getProperty(SAMPLE_RATE_PROPERTY, "1.0")),
+                    Integer.getInteger(MAX_PARAM_LENGTH_PROPERTY, 200));
+        }
+        return defaultLog;
+    }
+
+    // params are only collected for requests that make it past sampling
+    public void request(String method, String path, int status, long durationNanos, Supplier<Map<String, String>> params) {
+        if (status < 400 && sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        Map<String, Object> event = newEvent("request", method, path);
+        event.put("status", status);
+        event.put("durationMs", durationNanos / 1_000_000.0);
+        event.put("params", truncate(params.get()));
+        offer(event);
+    }
+
+    public void error(String method, String path, Throwable error) {
+        Map<String, Object> event = newEvent("error", method, path);
+        event.put("message", truncate(String.valueOf(error.getMessage())));
+        StringWriter stackTrace = new StringWriter();
+        error.printStackTrace(new PrintWriter(stackTrace));
+        event.put("stackTrace", stackTrace.toString());
+        offer(event);
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    private Map<String, Object> newEvent(String type, String method, String path) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("ts", System.currentTimeMillis());
+        event.put("event", type);
+        event.put("method", method);
+        event.put("path", path);
+        return event;
+    }
+
+    private void offer(Map<String, Object> event) {
+        if (!buffer.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    private Map<String, String> truncate(Map<String, String> params) {
+        Map<String, String> truncated = new LinkedHashMap<>();
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            truncated.put(param.getKey(), truncate(param.getValue()));
+        }
+        return truncated;
+    }
+
+    private String truncate(String value) {
+        if (value == null || value.length() <= maxParamLength) {
+            return value;
+        }
+        return value.substring(0, maxParamLength) + "...(" + value.length() + " chars)";
+    }
+
+    private void drain() {
+        long reportedDrops = 0;
+        while (true) {
+            try {
+                Map<String, Object> event = buffer.take();
+                long drops = dropped.sum();
+                if (drops > reportedDrops) {
+                    out.write("{\"event\":\"dropped\",\"count\":" + (drops - reportedDrops) + "}\n");
+                    reportedDrops = drops;
+                }
+                out.write(toJson(event));
+                out.write('\n');
+                written.increment();
+                if (buffer.isEmpty()) {
+                    out.flush();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                // logging must never take the server down, drop the event and carry on
+                dropped.increment();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String toJson(Map<String, ?> map) {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(Json.quote(entry.getKey())).append(':');
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                json.append(toJson((Map<String, ?>) value));
+            } else if (value instanceof Number || value instanceof Boolean) {
+                json.append(value);
+            } else {
+                json.append(Json.quote(value == null ? null : value.toString()));
+            }
+        }
+        return json.append('}').toString();
+    }
+}
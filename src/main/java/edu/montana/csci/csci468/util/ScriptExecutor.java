@@ -0,0 +1,155 @@
+package edu.montana.csci.csci468.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs compile/evaluate jobs off the request threads.  At most `maxConcurrent` jobs run at
+// once and up to `maxQueued` more wait for a slot; anything beyond that is rejected up front
+// rather than piling up behind the Jetty pool.  Jobs run on virtual threads when the JVM
+// has them, and on a fixed pool of `maxConcurrent` platform threads otherwise.  The caller
+// waits at most `timeoutMillis` for a result; on timeout or interrupt the job is cancelled
+// so a runaway script or a gone client doesn't pin a request thread.  Cancelling interrupts
+// the worker, which scripts notice at their next budget check.  A job keeps its admission
+// until the worker has really finished with it, so a script that is still winding down
+// can't let more jobs in than there are slots.
+public class ScriptExecutor {
+
+    public static final String MAX_CONCURRENT_PROPERTY = "catscript.server.maxConcurrent";
+    public static final String MAX_QUEUED_PROPERTY = "catscript.server.maxQueued";
+    public static final String VIRTUAL_THREADS_PROPERTY = "catscript.server.virtualThreads";
+    public static final String TIMEOUT_PROPERTY = "catscript.server.timeoutMillis";
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+
+    private static ScriptExecutor defaultExecutor;
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Semaphore running;
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final long timeoutMillis;
+
+    public ScriptExecutor(int maxConcurrent, int maxQueued, boolean useVirtualThreads) {
+        this(maxConcurrent, maxQueued, useVirtualThreads, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public ScriptExecutor(int maxConcurrent, int maxQueued, boolean useVirtualThreads, long timeoutMillis) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.timeoutMillis = timeoutMillis;
+        this.running = new Semaphore(maxConcurrent);
+        ExecutorService virtual = useVirtualThreads ? newVirtualThreadExecutor() : null;
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "catscript-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized ScriptExecutor getDefault() {
+        if (defaultExecutor == null) {
+            int maxConcurrent = Integer.getInteger(MAX_CONCURRENT_PROPERTY, Runtime.getRuntime().availableProcessors() * 2);
+            int maxQueued = Integer.getInteger(MAX_QUEUED_PROPERTY, 1000);
+            String virtual = System.getProperty(VIRTUAL_THREADS_PROPERTY, "true");
+            long timeoutMillis = Long.getLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_MILLIS);
+            defaultExecutor = new ScriptExecutor(maxConcurrent, maxQueued, Boolean.parseBoolean(virtual), timeoutMillis);
+        }
+        return defaultExecutor;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() only exists on JDK 21+, and we still target 11
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    public <T> T run(Callable<T> job) throws Exception {
+        if (admitted.incrementAndGet() > maxConcurrent + maxQueued) {
+            admitted.decrementAndGet();
+            throw new OverloadedException("Too many scripts are already running or waiting to run", 1);
+        }
+        // whoever claims the job first releases its admission: the worker once the job is done,
+        // or the caller if the job was abandoned before a worker picked it up
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    running.acquire();
+                    try {
+                        return job.call();
+                    } finally {
+                        running.release();
+                    }
+                } finally {
+                    admitted.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            admitted.decrementAndGet();
+            throw e;
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandon(future, claimed);
+            throw new TimeoutException("Script did not finish within " + timeoutMillis + "ms");
+        } catch (InterruptedException e) {
+            abandon(future, claimed);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void abandon(Future<?> future, AtomicBoolean claimed) {
+        future.cancel(true);
+        if (claimed.compareAndSet(false, true)) {
+            admitted.decrementAndGet();
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public int getAdmitted() {
+        return admitted.get();
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+}
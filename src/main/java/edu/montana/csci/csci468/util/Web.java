@@ -220,21 +220,16 @@ public class Web {
 
     public static void init() {
         before((request, response) -> {
-            System.out.println(">> REQUEST " + request.requestMethod() + " " + request.pathInfo() + getParameterInfo(request));
-            edu.montana.csci.csci468.util.Web.set(request, response, System.currentTimeMillis());
+            edu.montana.csci.csci468.util.Web.set(request, response, System.nanoTime());
         });
         after((request, response) -> {
             long startTimestamp = INFO.get().timestamp;
-            System.out.println("  << REQUEST " + request.requestMethod() + " " + request.pathInfo() + " completed in " +
-                    ((System.currentTimeMillis() - startTimestamp) / 1000.0) + " seconds");
+            RequestLog.getDefault().request(request.requestMethod(), request.pathInfo(), response.raw().getStatus(),
+                    System.nanoTime() - startTimestamp, () -> getParameters(request));
         });
 
         exception(Exception.class, (e, request, response) -> {
-            System.out.println("################################################################");
-            System.out.println("#  ERROR ");
-            System.out.println("################################################################");
-            System.out.println("An error occured: " + e.getMessage());
-            e.printStackTrace();
+            RequestLog.getDefault().error(request.requestMethod(), request.pathInfo(), e);
 
             StringWriter sw = new StringWriter();
             PrintWriter pw = new PrintWriter(sw);
@@ -246,24 +241,12 @@ public class Web {
         });
     }
 
-    private static String getParameterInfo(Request request) {
-        Set<String> params = request.queryParams();
-        if (params.size() > 0) {
-            StringBuilder str = new StringBuilder("\n   Parameters: {");
-            Object[] paramsArr = params.toArray();
-            Arrays.sort(paramsArr);
-            for (int i = 0; i < paramsArr.length; i++) {
-                if (i != 0) {
-                    str.append(", ");
-                }
-                Object o = paramsArr[i];
-                str.append(o.toString()).append(":").append(request.queryParams(o.toString()));
-            }
-            str.append("}");
-            return str.toString();
-        } else {
-            return "";
+    private static Map<String, String> getParameters(Request request) {
+        Map<String, String> params = new TreeMap<>();
+        for (String param : request.queryParams()) {
+            params.put(param, request.queryParams(param));
         }
+        return params;
     }
 
     private static class RequestInfo {
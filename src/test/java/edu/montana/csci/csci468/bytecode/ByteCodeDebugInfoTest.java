@@ -0,0 +1,87 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ByteCodeDebugInfoTest extends CatscriptTestBase {
+
+    @Test
+    void localsAreNamedInTheirScopes(@TempDir Path dir) {
+        Path dumpFile = dir.resolve("dump.txt");
+        byte[] classBytes = generatorFor("function f(a : int, s : string) : int {\n" +
+                "  var b = a + 1\n" +
+                "  for (x in [1, 2]) {\n" +
+                "    if (x > 1) { var c = s }\n" +
+                "  }\n" +
+                "  return b\n" +
+                "}\n" +
+                "print(f(1, \"s\"))\n")
+                .setVerifyClass(true)
+                .setDumpFile(dumpFile)
+                .generateClass();
+        assertFalse(Files.exists(dumpFile));
+
+        Map<String, List<String>> locals = new HashMap<>();
+        new ClassReader(classBytes).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                List<String> methodLocals = locals.computeIfAbsent(name, key -> new ArrayList<>());
+                return new MethodVisitor(Opcodes.ASM9) {
+                    @Override
+                    public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+                        methodLocals.add(name + ":" + descriptor + ":" + index);
+                    }
+                };
+            }
+        }, 0);
+        assertTrue(locals.get("f").containsAll(List.of("a:I:1", "s:Ljava/lang/String;:2", "b:I:3", "x:I:5",
+                "c:Ljava/lang/String;:6")), locals.get("f").toString());
+        assertEquals(6, locals.get("f").size());
+        assertTrue(locals.get("f").get(0).startsWith("c:"));
+        assertEquals(1, locals.get("execute").size());
+        assertTrue(locals.get("execute").get(0).startsWith("this:L"));
+    }
+
+    @Test
+    void stackTracesPointAtTheScript() {
+        CatScriptProgram program = generatorFor("function f(x : int) : int {\n" +
+                "  var y = x\n" +
+                "  return 10 / y\n" +
+                "}\n" +
+                "print(1)\n" +
+                "print(f(0))\n")
+                .setSourceName("divide.cat")
+                .compileToBytecode();
+        ArithmeticException exception = assertThrows(ArithmeticException.class, program::execute);
+        List<String> frames = new ArrayList<>();
+        for (StackTraceElement element : exception.getStackTrace()) {
+            if ("divide.cat".equals(element.getFileName())) {
+                frames.add(element.getMethodName() + ":" + element.getLineNumber());
+            }
+        }
+        assertEquals(List.of("f:3", "execute:6"), frames);
+    }
+
+    private ByteCodeGenerator generatorFor(String src) {
+        CatScriptProgram program = new CatScriptParser().parse(src);
+        program.verify();
+        return new ByteCodeGenerator(program);
+    }
+}
@@ -0,0 +1,47 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ByteCodeGeneratorDiagnosticsTest extends CatscriptTestBase {
+
+    @Test
+    void dumpIsOffByDefault(@TempDir Path dir) {
+        Path dumpFile = dir.resolve("dump.txt");
+        ByteCodeGenerator generator = generatorFor("1 + 1").setDumpFile(dumpFile);
+        assertFalse(generator.isDumpClass());
+        CatScriptProgram compiled = generator.compileToBytecode();
+        compiled.execute();
+        assertEquals("2\n", compiled.getOutput());
+        assertFalse(Files.exists(dumpFile));
+    }
+
+    @Test
+    void dumpCanBeWrittenToAFile(@TempDir Path dir) throws Exception {
+        Path dumpFile = dir.resolve("dump.txt");
+        ByteCodeGenerator generator = generatorFor("1 + 1")
+                .setDumpClass(true)
+                .setVerifyClass(true)
+                .setDumpFile(dumpFile);
+        CatScriptProgram compiled = generator.compileToBytecode();
+        compiled.execute();
+        assertEquals("2\n", compiled.getOutput());
+        String dump = Files.readString(dumpFile);
+        assertTrue(dump.contains("JVM Bytecode"));
+        assertTrue(dump.contains("IADD"));
+    }
+
+    private ByteCodeGenerator generatorFor(String src) {
+        CatScriptProgram program = new CatScriptParser().parse(src);
+        program.verify();
+        return new ByteCodeGenerator(program);
+    }
+}
@@ -43,6 +43,22 @@ public class CatscriptBasicExpressionCompileTest extends CatscriptTestBase {
         assertEquals("anull\n", compile("\"a\" + null"));
     }
 
+    @Test
+    void stringConcatenationChainsCompileProperly() {
+        assertEquals("a1btrue[1, 2]\n", compile("\"a\" + 1 + \"b\" + true + [1, 2]"));
+        assertEquals("3a\n", compile("1 + 2 + \"a\""));
+        assertEquals("a12\n", compile("\"a\" + (1 + \"\" + 2)"));
+        assertEquals("a3\n", compile("\"a\" + (1 + 2)"));
+
+        StringBuilder src = new StringBuilder("\"\"");
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 250; i++) {
+            src.append(" + ").append(i % 10);
+            expected.append(i % 10);
+        }
+        assertEquals(expected + "\n", compile(src.toString()));
+    }
+
     @Test
     void comparisonExpressionCompilesProperly() {
         assertEquals("false\n", compile("1 > 2"));
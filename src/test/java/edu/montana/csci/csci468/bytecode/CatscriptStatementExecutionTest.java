@@ -80,6 +80,52 @@ public class CatscriptStatementExecutionTest extends CatscriptTestBase {
         ));
     }
 
+    @Test
+    void tailRecursiveFunctionsDoNotGrowTheStack() {
+        assertEquals("100000\n", compile(
+                "function count(n : int, acc : int) : int {\n" +
+                        "  if(n == 0) { return acc }\n" +
+                        "  return count(n - 1, acc + 1)\n" +
+                "}\n" +
+                "print(count(100000, 0))"
+        ));
+    }
+
+    @Test
+    void tailCallArgumentsSeeTheOldParameterValues() {
+        assertEquals("a\nb\n", compile(
+                "function swap(n : int, a : string, b : string) : string {\n" +
+                        "  if(n == 0) { return a }\n" +
+                        "  return swap(n - 1, b, a)\n" +
+                "}\n" +
+                "print(swap(2, \"a\", \"b\"))\n" +
+                "print(swap(3, \"a\", \"b\"))"
+        ));
+    }
+
+    @Test
+    void voidSelfCallsInTailPositionLoop() {
+        assertEquals("0\n", compile(
+                "function down(x : int) {\n" +
+                        "  if(x > 0) { down(x - 1) } else { print(x) }\n" +
+                "}\n" +
+                "down(200000)"
+        ));
+    }
+
+    @Test
+    void discardedSelfCallsInNonVoidFunctionsAreNotTailCalls() {
+        String source = "function f(n : int) : int {\n" +
+                "  if (n == 0) { return 5 }\n" +
+                "  f(n - 1)\n" +
+                "}\n" +
+                "print(f(3))";
+        // falling off the end gives null in the interpreter and the type's default when
+        // compiled, but never the result of the discarded call
+        assertEquals("null\n", executeProgram(source));
+        assertEquals("0\n", compile(source));
+    }
+
     @Test
     void returnStatementWorks() {
         assertEquals("10\n", compile(
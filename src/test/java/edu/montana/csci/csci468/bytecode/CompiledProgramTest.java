@@ -0,0 +1,85 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.eval.BudgetExceededException;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.eval.ExecutionContext;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledProgramTest extends CatscriptTestBase {
+
+    private static final String SUM_PROGRAM = "var total = 0\n" +
+            "for(i in [1, 2, 3, 4]) { total = total + i }\n" +
+            "print(total)";
+
+    @Test
+    void eachRunGetsItsOwnGlobalsAndOutput() {
+        CompiledProgram compiled = compiledProgramFor(SUM_PROGRAM);
+        ExecutionContext first = new ExecutionContext();
+        ExecutionContext second = new ExecutionContext();
+        compiled.execute(first);
+        compiled.execute(second);
+        compiled.execute(second);
+        assertEquals("10\n", first.getOutput());
+        assertEquals("10\n10\n", second.getOutput());
+    }
+
+    @Test
+    void contextCanStreamOutput() {
+        CompiledProgram compiled = compiledProgramFor("print(1)\nprint(2)");
+        StringWriter writer = new StringWriter();
+        ExecutionContext context = new ExecutionContext(writer, ExecutionBudget.unlimited());
+        compiled.execute(context);
+        context.flushOutput();
+        assertEquals("1\n2\n", writer.toString());
+        assertEquals("", context.getOutput());
+    }
+
+    @Test
+    void budgetsArePerContext() {
+        CompiledProgram compiled = compiledProgramFor(SUM_PROGRAM);
+        ExecutionContext limited = new ExecutionContext(null, new ExecutionBudget(2, Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE));
+        assertThrows(BudgetExceededException.class, () -> compiled.execute(limited));
+        ExecutionContext unlimited = new ExecutionContext();
+        compiled.execute(unlimited);
+        assertEquals("10\n", unlimited.getOutput());
+    }
+
+    @Test
+    void oneCompiledProgramRunsConcurrently() throws Exception {
+        CompiledProgram compiled = compiledProgramFor(SUM_PROGRAM);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> {
+                    ExecutionContext context = new ExecutionContext();
+                    compiled.execute(context);
+                    return context.getOutput();
+                }));
+            }
+            for (Future<String> result : results) {
+                assertEquals("10\n", result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private CompiledProgram compiledProgramFor(String source) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        return new ByteCodeGenerator(program).compileProgram();
+    }
+}
@@ -0,0 +1,69 @@
+package edu.montana.csci.csci468.cli;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BackendComparisonTest extends CatscriptTestBase {
+
+    @Test
+    void everyBackendRunsTheSameProgram() {
+        BackendComparison comparison = new BackendComparison(1, 2, diagnostic -> fail(diagnostic.toString()));
+        BackendComparison.ProgramReport report = comparison.compare("loop.cat",
+                "function sq(x : int) : int { return x * x }\nfor (i in [1, 2, 3]) { print(sq(i)) }");
+        assertTrue(report.isMatch(), report.getMismatch());
+        for (BackendComparison.Backend backend : BackendComparison.Backend.values()) {
+            BackendComparison.Measurement measurement = report.getMeasurement(backend);
+            if (measurement.isAvailable()) {
+                assertEquals("1\n4\n9\n", measurement.getOutput());
+                assertNull(measurement.getError());
+                assertTrue(measurement.getExecuteNanos() > 0);
+            }
+        }
+        assertEquals(0, report.getMeasurement(BackendComparison.Backend.INTERPRETER).getPrepareNanos(), 100_000);
+        assertTrue(report.getMeasurement(BackendComparison.Backend.BYTECODE).getPrepareNanos() > 0);
+        assertNotNull(report.getFastest());
+        assertTrue(report.toJson().startsWith("{\"event\":\"comparison\",\"program\":\"loop.cat\",\"match\":true"));
+    }
+
+    @Test
+    void programsThatDoNotVerifyAreCountedAsFailed() {
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        Map<String, String> programs = new LinkedHashMap<>();
+        programs.put("good.cat", "print(1 + 1)");
+        programs.put("bad.cat", "print(1 + true)");
+        List<BackendComparison.ProgramReport> reports = new ArrayList<>();
+        BackendComparison.Summary summary = new BackendComparison(1, 1, diagnostics::add).run(programs, reports::add);
+        assertEquals(2, summary.getPrograms());
+        assertEquals(1, summary.getFailed());
+        assertEquals(0, summary.getMismatches());
+        assertEquals(1, reports.size());
+        assertEquals("bad.cat", diagnostics.get(0).getFile());
+    }
+
+    @Test
+    void javascriptOutputIsNotComparedWhenListsArePrinted() {
+        BackendComparison comparison = new BackendComparison(1, 1, diagnostic -> fail(diagnostic.toString()));
+        BackendComparison.ProgramReport report = comparison.compare("lists.cat", "var x = [1, 2]\nprint(\"x = \" + x)");
+        assertTrue(report.isMatch(), report.getMismatch());
+        assertEquals(Set.of(BackendComparison.Backend.JAVASCRIPT), report.getUnchecked());
+        assertTrue(report.toJson().contains("\"unchecked\":[\"javascript\"]"));
+        assertEquals("x = [1, 2]\n", report.getMeasurement(BackendComparison.Backend.BYTECODE).getOutput());
+
+        assertTrue(comparison.compare("ints.cat", "var x = [1, 2]\nfor (i in x) { print(\"i = \" + i) }").getUnchecked().isEmpty());
+    }
+
+    @Test
+    void firstDifferenceNamesTheLine() {
+        assertNull(BackendComparison.firstDifference("a\nb\n", "a\nb\n"));
+        assertEquals("line 2: \"b\" vs \"c\"", BackendComparison.firstDifference("a\nb\n", "a\nc\n"));
+        assertEquals("line 2: \"b\" vs end of output", BackendComparison.firstDifference("a\nb", "a"));
+    }
+}
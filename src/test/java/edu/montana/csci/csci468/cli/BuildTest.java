@@ -0,0 +1,115 @@
+package edu.montana.csci.csci468.cli;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuildTest extends CatscriptTestBase {
+
+    @Test
+    void evaluatesATreeInParallel(@TempDir Path dir) throws Exception {
+        Path src = dir.resolve("src");
+        write(src.resolve("a.cat"), "print(6 * 7)");
+        write(src.resolve("nested/b.cat"), "function f(x : int) : int { return x + 1 }\nprint(f(1))");
+        write(src.resolve("notes.txt"), "not a script");
+        Build.Result result = build(Build.Mode.EVALUATE, dir, new CopyOnWriteArrayList<>()).run(List.of(src));
+        assertEquals(2, result.getBuilt());
+        assertEquals(0, result.getFailed());
+        assertEquals("42\n", Files.readString(dir.resolve("out/a.out")));
+        assertEquals("2\n", Files.readString(dir.resolve("out/nested/b.out")));
+    }
+
+    @Test
+    void unchangedFilesAreSkipped(@TempDir Path dir) throws Exception {
+        Path src = dir.resolve("src");
+        write(src.resolve("a.cat"), "print(1)");
+        write(src.resolve("b.cat"), "print(2)");
+        assertEquals(2, build(Build.Mode.COMPILE, dir, new CopyOnWriteArrayList<>()).run(List.of(src)).getBuilt());
+
+        write(src.resolve("b.cat"), "print(3)");
+        Build.Result result = build(Build.Mode.COMPILE, dir, new CopyOnWriteArrayList<>()).run(List.of(src));
+        assertEquals(1, result.getBuilt());
+        assertEquals(1, result.getSkipped());
+
+        Files.delete(dir.resolve("out/catscript/a.class"));
+        assertEquals(1, build(Build.Mode.COMPILE, dir, new CopyOnWriteArrayList<>()).run(List.of(src)).getBuilt());
+    }
+
+    @Test
+    void failuresAreReportedWithPositions(@TempDir Path dir) throws Exception {
+        Path src = dir.resolve("src");
+        write(src.resolve("bad.cat"), "print(1)\nprint(  y)");
+        List<Diagnostic> diagnostics = new CopyOnWriteArrayList<>();
+        Build.Result result = build(Build.Mode.EVALUATE, dir, diagnostics).run(List.of(src));
+        assertEquals(1, result.getFailed());
+        Diagnostic diagnostic = diagnostics.get(0);
+        assertEquals(2, diagnostic.getLine());
+        assertEquals(9, diagnostic.getColumn());
+        assertEquals("UNKNOWN_NAME", diagnostic.getCode());
+        assertTrue(diagnostic.toJson().contains("\"line\":2,\"column\":9"));
+        assertFalse(Files.exists(dir.resolve("out/bad.out")));
+
+        // failed files are retried even though they haven't changed
+        assertEquals(1, build(Build.Mode.EVALUATE, dir, diagnostics).run(List.of(src)).getFailed());
+    }
+
+    @Test
+    void transpileWritesSourceMaps(@TempDir Path dir) throws Exception {
+        Path src = dir.resolve("src");
+        write(src.resolve("a.cat"), "print(1)");
+        build(Build.Mode.TRANSPILE, dir, new CopyOnWriteArrayList<>()).run(List.of(src));
+        assertEquals("print(1);\n//# sourceMappingURL=a.js.map\n", Files.readString(dir.resolve("out/a.js")));
+        assertTrue(Files.readString(dir.resolve("out/a.js.map")).contains("\"sources\":[\"../src/a.cat\"]"));
+    }
+
+    @Test
+    void changedBudgetSettingsRebuildEvaluateOutputs(@TempDir Path dir) throws Exception {
+        Path src = dir.resolve("src");
+        write(src.resolve("a.cat"), "print(1)");
+        assertEquals(1, build(Build.Mode.EVALUATE, dir, new CopyOnWriteArrayList<>()).run(List.of(src)).getBuilt());
+        assertEquals(1, build(Build.Mode.COMPILE, dir, new CopyOnWriteArrayList<>()).run(List.of(src)).getBuilt());
+        System.setProperty(ExecutionBudget.MAX_STEPS_PROPERTY, "1000");
+        try {
+            assertEquals(1, build(Build.Mode.EVALUATE, dir, new CopyOnWriteArrayList<>()).run(List.of(src)).getBuilt());
+            assertEquals(1, build(Build.Mode.COMPILE, dir, new CopyOnWriteArrayList<>()).run(List.of(src)).getSkipped());
+            assertEquals(1, build(Build.Mode.EVALUATE, dir, new CopyOnWriteArrayList<>()).run(List.of(src)).getSkipped());
+        } finally {
+            System.clearProperty(ExecutionBudget.MAX_STEPS_PROPERTY);
+        }
+        assertTrue(Files.readString(dir.resolve("out/" + Build.CACHE_FILE)).contains("#evaluate compiler=" + Build.COMPILER_VERSION));
+    }
+
+    @Test
+    void failedTranspilesRemoveTheirSourceMaps(@TempDir Path dir) throws Exception {
+        Path src = dir.resolve("src");
+        write(src.resolve("a.cat"), "print(1)");
+        build(Build.Mode.TRANSPILE, dir, new CopyOnWriteArrayList<>()).run(List.of(src));
+        write(src.resolve("a.cat"), "print(  y)");
+        assertEquals(1, build(Build.Mode.TRANSPILE, dir, new CopyOnWriteArrayList<>()).run(List.of(src)).getFailed());
+        assertFalse(Files.exists(dir.resolve("out/a.js")));
+        assertFalse(Files.exists(dir.resolve("out/a.js.map")));
+    }
+
+    @Test
+    void classNamesAreValidJavaNames() {
+        assertEquals("catscript/dir/_2_fast", Build.classNameFor(new Build.Source(Path.of("dir/2-fast.cat"), Path.of("dir/2-fast.cat"))));
+    }
+
+    private Build build(Build.Mode mode, Path dir, List<Diagnostic> diagnostics) throws Exception {
+        Path out = dir.resolve("out");
+        return new Build(mode, out, 4, BuildCache.load(out.resolve(Build.CACHE_FILE)), diagnostics::add);
+    }
+
+    private void write(Path file, String content) throws Exception {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
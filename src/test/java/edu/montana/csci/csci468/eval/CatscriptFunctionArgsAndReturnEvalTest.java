@@ -102,6 +102,21 @@ public class CatscriptFunctionArgsAndReturnEvalTest extends CatscriptTestBase
                 "print(foo())"));
     }
 
+    @Test
+    void returnFromInsideABlockLeavesTheCallersVariablesAlone() {
+        assertEquals("1\n2\n8\n", executeProgram("function fib(k : int) : int {" +
+                "  if (k < 2) { return k }" +
+                "  return fib(k - 1) + fib(k - 2)" +
+                "}" +
+                "for (n in [2, 3, 6]) { print(fib(n)) }"));
+        assertEquals("6\n", executeProgram("function g(k : int) : int {" +
+                "  for (i in [1]) { if (k < 1) { return 0 } }" +
+                "  var a = g(k - 1)" +
+                "  return a + k" +
+                "}" +
+                "print(g(3))"));
+    }
+
 
 
 }
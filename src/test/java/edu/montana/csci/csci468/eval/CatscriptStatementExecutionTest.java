@@ -1,8 +1,12 @@
 package edu.montana.csci.csci468.eval;
 
 import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
 import org.junit.jupiter.api.Test;
 
+import java.io.StringWriter;
 import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -94,4 +98,25 @@ public class CatscriptStatementExecutionTest extends CatscriptTestBase {
     }
 
 
+    @Test
+    void printCanStreamToAWriter() {
+        String src = "function foo(x : int) { print(x) }\n" +
+                "for(x in [1, 2]) { foo(x) }\n" +
+                "print(\"done\")";
+        CatScriptProgram program = new CatScriptParser().parse(src);
+        program.verify();
+        StringWriter interpreted = new StringWriter();
+        program.setOutputWriter(interpreted);
+        program.execute();
+        assertEquals("1\n2\ndone\n", interpreted.toString());
+        assertEquals("", program.getOutput());
+
+        CatScriptProgram compiled = new ByteCodeGenerator(program).compileToBytecode();
+        StringWriter compiledOutput = new StringWriter();
+        compiled.setOutputWriter(compiledOutput);
+        compiled.execute();
+        assertEquals("1\n2\ndone\n", compiledOutput.toString());
+    }
+
+
 }
@@ -0,0 +1,103 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.TieredCompiler;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import static edu.montana.csci.csci468.eval.BudgetExceededException.Kind.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutionBudgetTest extends CatscriptTestBase {
+
+    private static final String LOOPS = "for(x in [1, 2, 3]) { for(y in [1, 2, 3]) { print(x * y) } }";
+    private static final String RECURSION = "function down(x : int) : int {\n" +
+            "  if(x == 0) { return 0 }\n" +
+            "  return 1 + down(x - 1)\n" +
+            "}\n" +
+            "print(down(50))";
+
+    @Test
+    void programsWithinBudgetRunNormally() {
+        assertEquals("50\n", evaluate(RECURSION, new ExecutionBudget(1000, 10_000, 10, 51)));
+        assertEquals("50\n", compiled(RECURSION, new ExecutionBudget(1000, 10_000, 10, 51)));
+    }
+
+    @Test
+    void stepBudgetCoversLoopIterations() {
+        assertEquals(STEPS, evaluateFailure(LOOPS, new ExecutionBudget(11, Long.MAX_VALUE, 10, 10)).getKind());
+        assertEquals(STEPS, compiledFailure(LOOPS, new ExecutionBudget(11, Long.MAX_VALUE, 10, 10)).getKind());
+        assertEquals("1\n2\n3\n2\n4\n6\n3\n6\n9\n", evaluate(LOOPS, new ExecutionBudget(12, Long.MAX_VALUE, 10, 10)));
+        assertEquals("1\n2\n3\n2\n4\n6\n3\n6\n9\n", compiled(LOOPS, new ExecutionBudget(12, Long.MAX_VALUE, 10, 10)));
+    }
+
+    @Test
+    void callDepthIsLimited() {
+        BudgetExceededException failure = evaluateFailure(RECURSION, new ExecutionBudget(1000, Long.MAX_VALUE, 10, 20));
+        assertEquals(CALL_DEPTH, failure.getKind());
+        assertEquals(20, failure.getLimit());
+        assertEquals(CALL_DEPTH, compiledFailure(RECURSION, new ExecutionBudget(1000, Long.MAX_VALUE, 10, 20)).getKind());
+    }
+
+    @Test
+    void tailCallsCountAsSteps() {
+        String src = "function spin(x : int) : int { return spin(x + 1) }\n" +
+                "print(spin(0))";
+        assertEquals(STEPS, compiledFailure(src, new ExecutionBudget(10_000, Long.MAX_VALUE, 10, 10)).getKind());
+    }
+
+    @Test
+    void listSizeIsLimited() {
+        assertEquals(LIST_SIZE, evaluateFailure("print([1, 2, 3, 4])", new ExecutionBudget(10, 10, 3, 10)).getKind());
+        assertEquals(LIST_SIZE, compiledFailure("print([1, 2, 3, 4])", new ExecutionBudget(10, 10, 3, 10)).getKind());
+    }
+
+    @Test
+    void wallClockDeadlineIsEnforced() {
+        String src = "function spin(x : int) { spin(x + 1) }\n" +
+                "spin(0)";
+        assertEquals(TIME, compiledFailure(src, new ExecutionBudget(Long.MAX_VALUE, 50, 10, 10)).getKind());
+    }
+
+    @Test
+    void tieredFunctionsStayWithinTheRunsBudget() {
+        String src = "function sum(x : int) : int { for(i in [1, 2, 3]) { x = x + i } return x }\n" +
+                "for(n in [1, 2, 3, 4, 5]) { print(sum(n)) }";
+        CatScriptProgram program = parse(src);
+        CatscriptRuntime runtime = new CatscriptRuntime(new TieredCompiler(1, Runnable::run),
+                new ExecutionBudget(15, Long.MAX_VALUE, 10, 10));
+        BudgetExceededException failure = assertThrows(BudgetExceededException.class, () -> program.execute(runtime));
+        assertEquals(STEPS, failure.getKind());
+        assertNotNull(program.getFunction("sum").getCompiledFunction());
+    }
+
+    private String evaluate(String src, ExecutionBudget budget) {
+        CatScriptProgram program = parse(src);
+        program.setBudget(budget);
+        program.execute();
+        return program.getOutput();
+    }
+
+    private String compiled(String src, ExecutionBudget budget) {
+        CatScriptProgram program = new ByteCodeGenerator(parse(src)).compileToBytecode();
+        program.setBudget(budget);
+        program.execute();
+        return program.getOutput();
+    }
+
+    private BudgetExceededException evaluateFailure(String src, ExecutionBudget budget) {
+        return assertThrows(BudgetExceededException.class, () -> evaluate(src, budget));
+    }
+
+    private BudgetExceededException compiledFailure(String src, ExecutionBudget budget) {
+        return assertThrows(BudgetExceededException.class, () -> compiled(src, budget));
+    }
+
+    private CatScriptProgram parse(String src) {
+        CatScriptProgram program = new CatScriptParser().parse(src);
+        program.verify();
+        return program;
+    }
+}
@@ -0,0 +1,86 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScriptProfilerTest extends CatscriptTestBase {
+
+    @Test
+    void interpretedSamplesNameCatScriptLines() {
+        ScriptProfiler.Profile profile = new ScriptProfiler(100).interpret(program(10), new ExecutionContext());
+        assertProfilesSpin(profile);
+    }
+
+    @Test
+    void compiledSamplesNameCatScriptLines() {
+        CatScriptProgram program = program(200);
+        ScriptProfiler.Profile profile = new ScriptProfiler(100)
+                .run(new ByteCodeGenerator(program).compileProgram(), new ExecutionContext());
+        assertProfilesSpin(profile);
+    }
+
+    @Test
+    void sampledStackTracksFramesAndLines() {
+        SampledStack stack = new SampledStack(1);
+        stack.setLine(7);
+        stack.push("fib", 2);
+        stack.setLine(3);
+        assertEquals("main:7;fib:3", stack.snapshot());
+        stack.pop();
+        assertEquals("main:7", stack.snapshot());
+    }
+
+    @Test
+    void compiledStacksKeepOnlyProgramFrames() {
+        StackTraceElement[] trace = {
+                new StackTraceElement("catscript.Program", "spin", "program.cat", 5),
+                new StackTraceElement("java.util.ArrayList$Itr", "next", "ArrayList.java", 1000),
+                new StackTraceElement("catscript.Program", "execute", "program.cat", 11),
+                new StackTraceElement("edu.montana.csci.csci468.bytecode.CompiledProgram", "execute", null, 40),
+        };
+        assertEquals("main:11;spin:5", ScriptProfiler.collapse(trace, "catscript.Program"));
+        assertNull(ScriptProfiler.collapse(new StackTraceElement[0], "catscript.Program"));
+    }
+
+    private void assertProfilesSpin(ScriptProfiler.Profile profile) {
+        assertTrue(profile.getSamples() > 0);
+        for (Map.Entry<String, Long> stack : profile.getStacks().entrySet()) {
+            assertTrue(stack.getKey().matches("main:\\d+(;spin:\\d+)?"), stack.getKey());
+        }
+        assertTrue(profile.getStacks().keySet().stream().anyMatch(stack -> stack.startsWith("main:10;spin:")));
+        assertTrue(profile.toCollapsed().matches("(?s)(main:\\d+(;spin:\\d+)? \\d+\\n)+"));
+    }
+
+    // spin's loops are on lines 3 to 5 and it is called from line 10
+    private CatScriptProgram program(int rounds) {
+        StringBuilder list = new StringBuilder("[1");
+        for (int i = 2; i <= 20; i++) {
+            list.append(", ").append(i);
+        }
+        list.append("]");
+        StringBuilder outer = new StringBuilder("[0");
+        for (int i = 1; i < rounds; i++) {
+            outer.append(", ").append(i);
+        }
+        outer.append("]");
+        CatScriptProgram program = new CatScriptParser().parse("function spin(k : int) : int {\n" +
+                "  var total = k\n" +
+                "  for (i in " + list + ") {\n" +
+                "    for (j in " + list + ") {\n" +
+                "      total = total + i * j\n" +
+                "    }\n" +
+                "  }\n" +
+                "  return total\n" +
+                "}\n" +
+                "for (a in " + list + ") { for (n in " + outer + ") { spin(n) } }\n");
+        program.verify();
+        return program;
+    }
+}
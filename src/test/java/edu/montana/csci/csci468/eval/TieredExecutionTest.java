@@ -0,0 +1,136 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.bytecode.TieredCompiler;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TieredExecutionTest extends CatscriptTestBase {
+
+    @Test
+    void hotFunctionsAreCompiledAndSwappedIn() {
+        CatScriptProgram program = executeTiered("function double(x : int) : int { return x * 2 }\n" +
+                "for(i in [1, 2, 3, 4, 5]) { print(double(i)) }");
+        assertEquals("2\n4\n6\n8\n10\n", program.getOutput());
+        assertNotNull(program.getFunction("double").getCompiledFunction());
+        assertEquals(2, program.getFunction("double").getInvocationCount());
+    }
+
+    @Test
+    void compiledFunctionsPrintToTheProgramOutput() {
+        CatScriptProgram program = executeTiered("function show(x : int) { print(x) }\n" +
+                "show(1)\n" +
+                "show(2)\n" +
+                "show(3)");
+        assertEquals("1\n2\n3\n", program.getOutput());
+        assertNotNull(program.getFunction("show").getCompiledFunction());
+    }
+
+    @Test
+    void calleesAreCompiledWithTheHotFunction() {
+        CatScriptProgram program = executeTiered("function inc(x : int) : int { return x + 1 }\n" +
+                "function twice(x : int) : int { return inc(inc(x)) }\n" +
+                "print(twice(1))\n" +
+                "print(twice(2))\n" +
+                "print(twice(3))");
+        assertEquals("3\n4\n5\n", program.getOutput());
+        assertNotNull(program.getFunction("twice").getCompiledFunction());
+        assertNotNull(program.getFunction("inc").getCompiledFunction());
+    }
+
+    @Test
+    void functionsUsingGlobalsStayInterpreted() {
+        CatScriptProgram program = executeTiered("var offset = 10\n" +
+                "function add(x : int) : int { return x + offset }\n" +
+                "print(add(1))\n" +
+                "print(add(2))\n" +
+                "print(add(3))");
+        assertEquals("11\n12\n13\n", program.getOutput());
+        assertNull(program.getFunction("add").getCompiledFunction());
+    }
+
+    @Test
+    void rejectedCompilesAreRetried() {
+        AtomicInteger submissions = new AtomicInteger();
+        Executor rejectFirst = task -> {
+            if (submissions.incrementAndGet() == 1) {
+                throw new RejectedExecutionException("busy");
+            }
+            task.run();
+        };
+        CatScriptProgram program = executeTiered("function double(x : int) : int { return x * 2 }\n" +
+                "for(i in [1, 2, 3, 4, 5]) { print(double(i)) }", new TieredCompiler(2, rejectFirst));
+        assertEquals("2\n4\n6\n8\n10\n", program.getOutput());
+        assertEquals(2, submissions.get());
+        assertEquals(4, program.getFunction("double").getInvocationCount());
+        assertNotNull(program.getFunction("double").getCompiledFunction());
+    }
+
+    @Test
+    void uncompilableFunctionsStopRetrying() {
+        CatScriptProgram program = executeTiered("var offset = 10\n" +
+                "function add(x : int) : int { return x + offset }\n" +
+                "for(i in [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]) { add(i) }", new TieredCompiler(2, 2, Runnable::run));
+        assertNull(program.getFunction("add").getCompiledFunction());
+        assertEquals(2, program.getFunction("add").getCompileAttempts());
+        assertEquals(TieredCompiler.CompileState.FAILED, program.getFunction("add").getCompileState());
+        assertEquals(4, program.getFunction("add").getInvocationCount());
+    }
+
+    @Test
+    void compiledFunctionsFollowTheProgramIntoLaterRuns() {
+        CatScriptProgram program = new CatScriptParser().parse("function show(x : int) { print([x]) }\n" +
+                "show(1)\n" +
+                "show(2)\n" +
+                "show(3)");
+        program.verify();
+        program.execute(new CatscriptRuntime(new TieredCompiler(2, Runnable::run)));
+        assertEquals("[1]\n[2]\n[3]\n", program.getOutput());
+        assertNotNull(program.getFunction("show").getCompiledFunction());
+
+        program.execute(new CatscriptRuntime(new TieredCompiler(2, Runnable::run)));
+        assertEquals("[1]\n[2]\n[3]\n", program.getOutput());
+
+        // only the compiled body checks list sizes, so this is the later run's budget at work
+        ExecutionBudget budget = new ExecutionBudget(Long.MAX_VALUE, Long.MAX_VALUE, 0, Integer.MAX_VALUE);
+        assertThrows(BudgetExceededException.class,
+                () -> program.execute(new CatscriptRuntime(new TieredCompiler(2, Runnable::run), budget)));
+        assertEquals("", program.getOutput());
+    }
+
+    @Test
+    void callsIntoCompiledFunctionsAreChargedOnce() {
+        String source = "function add(x : int, y : int) : int { return x + y }\n" +
+                "for(i in [1, 2, 3, 4, 5]) { add(i, i) }";
+        ExecutionBudget interpreted = ExecutionBudget.unlimited();
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        program.execute(new CatscriptRuntime(null, interpreted));
+
+        ExecutionBudget tiered = ExecutionBudget.unlimited();
+        program = new CatScriptParser().parse(source);
+        program.verify();
+        program.execute(new CatscriptRuntime(new TieredCompiler(2, Runnable::run), tiered));
+        assertNotNull(program.getFunction("add").getCompiledFunction());
+        assertEquals(interpreted.getSteps(), tiered.getSteps());
+        assertEquals(0, tiered.getCallDepth());
+    }
+
+    private CatScriptProgram executeTiered(String src) {
+        return executeTiered(src, new TieredCompiler(2, Runnable::run));
+    }
+
+    private CatScriptProgram executeTiered(String src, TieredCompiler tieredCompiler) {
+        CatScriptProgram program = new CatScriptParser().parse(src);
+        program.verify();
+        program.execute(new CatscriptRuntime(tieredCompiler));
+        return program;
+    }
+}
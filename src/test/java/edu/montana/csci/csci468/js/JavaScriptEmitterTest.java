@@ -0,0 +1,92 @@
+package edu.montana.csci.csci468.js;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JavaScriptEmitterTest extends CatscriptTestBase {
+
+    @Test
+    void intArithmeticIsCoercedToInt32() {
+        assertEquals("print(((1 - 2 | 0) - 1 | 0));\n", javascriptFor("var x = 1\nprint(1 - 2 - 1)").split("\n", 2)[1]);
+        assertEquals("print((-x | 0));\n", javascriptFor("var x = 1\nprint(-x)").split("\n", 2)[1]);
+        assertEquals("print((x + \"a\"));\n", javascriptFor("var x = 1\nprint(x + \"a\")").split("\n", 2)[1]);
+    }
+
+    @Test
+    void multiplicationUsesTheHoistedHelper() {
+        String javascript = javascriptFor("var x = 3\nprint(x * x)");
+        assertTrue(javascript.startsWith("var x = 3;\nprint($imul(x, x));\nfunction $imul(a, b) {"));
+        assertFalse(javascriptFor("print(1)").contains("$imul"));
+    }
+
+    @Test
+    void divisionUsesTheHoistedHelper() {
+        String javascript = javascriptFor("var x = 1\nprint(x / 2)");
+        assertTrue(javascript.startsWith("var x = 1;\nprint($div(x, 2));\nfunction $div(a, b) {"));
+        assertTrue(javascript.contains("throw new Error(\"/ by zero\")"));
+    }
+
+    @Test
+    void listsCompareByValue() {
+        assertTrue(javascriptFor("var x = [1]\nprint(x == [1])").startsWith("var x = [1];\nprint($equals(x, [1]));\n"));
+        assertTrue(javascriptFor("var x = [1]\nprint(x != [1])").startsWith("var x = [1];\nprint(!$equals(x, [1]));\n"));
+        assertEquals("var x = \"a\";\nprint((x === \"a\"));\n", javascriptFor("var x = \"a\"\nprint(x == \"a\")"));
+    }
+
+    @Test
+    void statementsAreTranspiled() {
+        assertEquals("function foo(x, y) {\n" +
+                "    x = x | 0;\n" +
+                "    for (var $i0 = 0, $list1 = [1, 2]; $i0 < $list1.length; $i0++) {\n" +
+                "        var i = $list1[$i0];\n" +
+                "        if ((i > x)) {\n" +
+                "            print(y);\n" +
+                "        } else {\n" +
+                "            return;\n" +
+                "        }\n" +
+                "    }\n" +
+                "}\n" +
+                "foo(1, null);\n", javascriptFor("function foo(x : int, y) {\n" +
+                "  for(i in [1, 2]) {\n" +
+                "    if(i > x) { print(y) } else { return }\n" +
+                "  }\n" +
+                "}\n" +
+                "foo(1, null)"));
+    }
+
+    @Test
+    void reservedNamesAreEscaped() {
+        // CatScript keeps the backslash in the string's value, so both characters get escaped
+        assertEquals("var $new = \"a\\\\\\\"b\";\nprint($new);\n", javascriptFor("var new = \"a\\\"b\"\nprint(new)"));
+    }
+
+    @Test
+    void sourceMapPointsBackToCatScriptLines() {
+        CatScriptProgram program = parse("var x = 1\n" +
+                "function foo() : int {\n" +
+                "  return x\n" +
+                "}\n" +
+                "print(foo())");
+        StringWriter out = new StringWriter();
+        String sourceMap = JSTranspiler.transpile(program, out, "foo.cat", "foo.js");
+        assertEquals("{\"version\":3,\"file\":\"foo.js\",\"sources\":[\"foo.cat\"],\"names\":[]," +
+                "\"mappings\":\"AAAA;AACA;IACE;;AAEF,MAAM\"}", sourceMap);
+        assertEquals("var x = 1;\nfunction foo() {\n    return x;\n}\nprint(foo());\n", out.toString());
+    }
+
+    private String javascriptFor(String source) {
+        return new JSTranspiler(parse(source)).getJavascriptSource();
+    }
+
+    private CatScriptProgram parse(String source) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        return program;
+    }
+}
@@ -0,0 +1,117 @@
+package edu.montana.csci.csci468.js;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScriptEnginePoolTest extends CatscriptTestBase {
+
+    @Test
+    void enginesAreReused() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        ScriptEnginePool pool = new ScriptEnginePool(() -> {
+            created.incrementAndGet();
+            return new EchoEngine();
+        }, 2, 16);
+        assertTrue(pool.prewarm(1));
+        assertEquals("a\n", pool.evaluate("a"));
+        assertEquals("b\n", pool.evaluate("b"));
+        assertEquals(1, created.get());
+        assertEquals(1, pool.getIdle());
+    }
+
+    @Test
+    void compiledScriptsAreCachedBySource() throws Exception {
+        ScriptEnginePool pool = new ScriptEnginePool(EchoEngine::new, 1, 16);
+        pool.evaluate("a");
+        pool.evaluate("a");
+        pool.evaluate("b");
+        assertEquals(2, pool.getCompiles());
+        assertEquals(1, pool.getCacheHits());
+    }
+
+    @Test
+    void eachEvaluationGetsFreshBindings() throws Exception {
+        ScriptEnginePool pool = new ScriptEnginePool(EchoEngine::new, 1, 16);
+        assertEquals("set\n", pool.evaluate("set"));
+        assertEquals("get null\n", pool.evaluate("get"));
+    }
+
+    @Test
+    void missingEngineIsReported() {
+        ScriptEnginePool pool = new ScriptEnginePool(() -> null, 1, 16);
+        assertFalse(pool.prewarm(1));
+        assertThrows(IllegalStateException.class, () -> pool.evaluate("a"));
+    }
+
+    // prints its source back, "set" stores a binding and "get" prints it
+    private static class EchoEngine extends AbstractScriptEngine implements Compilable {
+
+        @Override
+        public Object eval(String script, ScriptContext context) throws ScriptException {
+            Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+            try {
+                if (script.equals("set")) {
+                    bindings.put("x", "value");
+                    context.getWriter().write("set\n");
+                } else if (script.equals("get")) {
+                    context.getWriter().write("get " + bindings.get("x") + "\n");
+                } else if (!script.equals("0")) {
+                    context.getWriter().write(script + "\n");
+                }
+            } catch (IOException e) {
+                throw new ScriptException(e);
+            }
+            return null;
+        }
+
+        @Override
+        public Object eval(Reader reader, ScriptContext context) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompiledScript compile(String script) {
+            return new CompiledScript() {
+                @Override
+                public Object eval(ScriptContext context) throws ScriptException {
+                    return EchoEngine.this.eval(script, context);
+                }
+
+                @Override
+                public ScriptEngine getEngine() {
+                    return EchoEngine.this;
+                }
+            };
+        }
+
+        @Override
+        public CompiledScript compile(Reader script) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Bindings createBindings() {
+            return new SimpleBindings();
+        }
+
+        @Override
+        public ScriptEngineFactory getFactory() {
+            return null;
+        }
+    }
+}
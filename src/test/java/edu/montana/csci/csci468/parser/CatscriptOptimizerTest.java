@@ -0,0 +1,108 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.parser.expressions.*;
+import edu.montana.csci.csci468.parser.statements.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptOptimizerTest extends CatscriptTestBase {
+
+    @Test
+    public void integerArithmeticIsFolded() {
+        IntegerLiteralExpression expr = (IntegerLiteralExpression) optimize("1 + 2 * 3").getExpression();
+        assertEquals(7, expr.getValue());
+        expr = (IntegerLiteralExpression) optimize("(1 - 4) * -2").getExpression();
+        assertEquals(6, expr.getValue());
+    }
+
+    @Test
+    public void stringConcatenationIsFolded() {
+        StringLiteralExpression expr = (StringLiteralExpression) optimize("\"a\" + 1 + \"b\"").getExpression();
+        assertEquals("a1b", expr.getValue());
+        expr = (StringLiteralExpression) optimize("null + \"a\"").getExpression();
+        assertEquals("nulla", expr.getValue());
+    }
+
+    @Test
+    public void comparisonsAndNotAreFolded() {
+        BooleanLiteralExpression expr = (BooleanLiteralExpression) optimize("not (1 > 2)").getExpression();
+        assertTrue(expr.getValue());
+    }
+
+    @Test
+    public void divisionByZeroIsNotFolded() {
+        assertTrue(optimize("1 / 0").getExpression() instanceof FactorExpression);
+    }
+
+    @Test
+    public void nonConstantSubtreesAreKept() {
+        CatScriptProgram program = optimize("var x = 1\n" +
+                "print(x + 2 * 3)");
+        PrintStatement print = (PrintStatement) program.getStatements().get(1);
+        AdditiveExpression additive = (AdditiveExpression) print.getExpression();
+        assertTrue(additive.getLeftHandSide() instanceof IdentifierExpression);
+        assertEquals(6, ((IntegerLiteralExpression) additive.getRightHandSide()).getValue());
+    }
+
+    @Test
+    public void deadBranchesAreRemoved() {
+        CatScriptProgram program = optimize("if(true) { print(1) } else { print(2) }\n" +
+                "if(1 > 2) { print(3) }");
+        assertEquals(1, program.getStatements().size());
+        PrintStatement print = (PrintStatement) program.getStatements().get(0);
+        assertSame(program, print.getParent());
+        assertEquals(1, ((IntegerLiteralExpression) print.getExpression()).getValue());
+    }
+
+    @Test
+    public void liveBranchesWithDeclarationsKeepTheirScope() {
+        CatScriptProgram program = optimize("if(false) { print(1) } else { var x = 2 print(x) }");
+        IfStatement ifStatement = (IfStatement) program.getStatements().get(0);
+        assertTrue(ifStatement.getTrueStatements().isEmpty());
+        assertEquals(2, ifStatement.getElseStatements().size());
+    }
+
+    @Test
+    public void optimizedProgramsRunTheSameOnEveryBackend() {
+        String src = "function f(x : int) : int {\n" +
+                "  if(2 > 1) { return x * (2 + 3) }\n" +
+                "  return 0\n" +
+                "}\n" +
+                "print(\"v\" + (1 + 1))\n" +
+                "print(f(2))";
+        CatScriptProgram evaluated = optimize(src);
+        evaluated.execute();
+        assertEquals("v2\n10\n", evaluated.getOutput());
+
+        CatScriptProgram compiled = new ByteCodeGenerator(optimize(src)).compileToBytecode();
+        compiled.execute();
+        assertEquals("v2\n10\n", compiled.getOutput());
+    }
+
+    @Test
+    public void foldedStringsCompareLikeTheConcatenationTheyReplace() {
+        String src = "var x = \"a\" + \"b\"\n" +
+                "print(x == \"ab\")\n" +
+                "print(x != \"ab\")";
+        CatScriptProgram evaluated = optimize(src);
+        evaluated.execute();
+        assertEquals("true\nfalse\n", evaluated.getOutput());
+
+        CatScriptProgram compiled = new ByteCodeGenerator(optimize(src)).compileToBytecode();
+        compiled.execute();
+        assertEquals("true\nfalse\n", compiled.getOutput());
+
+        assertEquals("true\nfalse\n", compile(src));
+        assertEquals("true\nfalse\n", executeProgram(src));
+    }
+
+    private CatScriptProgram optimize(String src) {
+        CatScriptProgram program = new CatScriptParser().parse(src);
+        program.verify();
+        program.optimize();
+        return program;
+    }
+}
@@ -0,0 +1,69 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.PrintStatement;
+import edu.montana.csci.csci468.tokenizer.TokenType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParserPoolTest extends CatscriptTestBase {
+
+    @Test
+    void pooledParsesProduceIndependentPrograms() {
+        CatScriptProgram first = ParserPool.parse("print(1)\nprint(\"first\")");
+        CatScriptProgram second = ParserPool.parse("var x = 2\nprint(x)");
+        first.verify();
+        second.verify();
+        first.execute();
+        second.execute();
+        assertEquals("1\nfirst\n", first.getOutput());
+        assertEquals("2\n", second.getOutput());
+    }
+
+    @Test
+    void tokensOfEarlierProgramsSurviveReuse() {
+        CatScriptProgram first = ParserPool.parse("print(1)\nprint(2)");
+        ParserPool.parse("var y = 10\nvar z = 20");
+        PrintStatement print = (PrintStatement) first.getStatements().get(1);
+        assertEquals("print(2)", print.getStart().getLineContent());
+    }
+
+    @Test
+    void tokenListsAreLentToCallbacks() {
+        assertEquals(TokenType.INTEGER, ParserPool.withTokens("1 + 2", tokens -> tokens.getCurrentToken().getType()));
+        int nested = ParserPool.withTokens("1 + 2", outer ->
+                ParserPool.withTokens("a b c d", inner -> inner.size()) + outer.size());
+        assertEquals(9, nested);
+        assertEquals("3\n", evaluate(ParserPool.withTokens("1", tokens -> ParserPool.parse("1 + 2"))));
+    }
+
+    @Test
+    void hugeSourcesAreNotRetained() {
+        StringBuilder src = new StringBuilder();
+        for (int i = 0; i < ParserPool.MAX_RETAINED_TOKENS / 4 + 1; i++) {
+            src.append("print(1)\n");
+        }
+        assertEquals(ParserPool.MAX_RETAINED_TOKENS / 4 + 1, ParserPool.parse(src.toString()).getStatements().size());
+        assertEquals("print(1)", ParserPool.parse("print(1)").getStatements().get(0).getStart().getLineContent());
+    }
+
+    @Test
+    void instancesAreReusedAcrossThreads() throws Exception {
+        ParserPool pool = new ParserPool(2);
+        for (int i = 0; i < 3; i++) {
+            // a fresh thread per parse, like a virtual thread per job
+            Thread thread = new Thread(() -> pool.parseSource("print(1)"));
+            thread.start();
+            thread.join();
+            assertEquals(1, pool.getIdleCount());
+        }
+    }
+
+    private String evaluate(CatScriptProgram program) {
+        program.verify();
+        program.execute();
+        return program.getOutput();
+    }
+}
@@ -140,6 +140,18 @@ public class CatScriptTokenizerTest extends CatscriptTestBase {
         assertEquals(14, tokenList.get(2).getEnd());
     }
 
+    @Test
+    public void columnsAreCorrect() {
+        List<Token> tokenList = getTokensAsList("a\n b\n  c d\nfoo");
+        assertEquals(0, tokenList.get(0).getColumn());
+        assertEquals(1, tokenList.get(1).getColumn());
+        assertEquals(2, tokenList.get(2).getColumn());
+        assertEquals(4, tokenList.get(3).getColumn());
+        assertEquals(0, tokenList.get(4).getColumn());
+        assertEquals(11, tokenList.get(4).getLineStart());
+        assertEquals(3, tokenList.get(5).getColumn());
+    }
+
     @Test
     public void varStatement(){
         assertTokensAre("var x = 10",
@@ -0,0 +1,101 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static edu.montana.csci.csci468.util.AdmissionController.Priority.CHEAP;
+import static edu.montana.csci.csci468.util.AdmissionController.Priority.EXPENSIVE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControllerTest extends CatscriptTestBase {
+
+    @Test
+    void ticketsAreHandedOutUpToCapacity() throws Exception {
+        AdmissionController controller = new AdmissionController(2, 0, 10, 1000);
+        AdmissionController.Ticket first = controller.admit("a", EXPENSIVE);
+        AdmissionController.Ticket second = controller.admit("b", EXPENSIVE);
+        assertEquals(2, controller.getRunning());
+        OverloadedException rejected = assertThrows(OverloadedException.class, () -> controller.admit("c", CHEAP));
+        assertTrue(rejected.getRetryAfterSeconds() >= 1);
+        first.close();
+        second.close();
+        assertEquals(0, controller.getRunning());
+        controller.admit("c", CHEAP).close();
+        assertEquals(3, controller.getAdmitted());
+        assertEquals(1, controller.getRejected());
+    }
+
+    @Test
+    void clientsAreLimitedSeparately() throws Exception {
+        AdmissionController controller = new AdmissionController(10, 10, 1, 1000);
+        AdmissionController.Ticket ticket = controller.admit("a", CHEAP);
+        assertThrows(OverloadedException.class, () -> controller.admit("a", CHEAP));
+        controller.admit("b", CHEAP).close();
+        ticket.close();
+        controller.admit("a", CHEAP).close();
+    }
+
+    @Test
+    void waitersTimeOut() throws Exception {
+        AdmissionController controller = new AdmissionController(1, 10, 10, 20);
+        try (AdmissionController.Ticket ignored = controller.admit("a", EXPENSIVE)) {
+            assertThrows(OverloadedException.class, () -> controller.admit("b", EXPENSIVE));
+            assertEquals(0, controller.getWaiting());
+        }
+    }
+
+    @Test
+    void expensiveRequestsLeaveRoomInTheQueueForCheapOnes() throws Exception {
+        AdmissionController controller = new AdmissionController(1, 4, 10, 5000);
+        AdmissionController.Ticket running = controller.admit("a", EXPENSIVE);
+        List<CompletableFuture<Void>> waiters = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            waiters.add(admitLater(controller, "e" + i, EXPENSIVE, new CopyOnWriteArrayList<>()));
+        }
+        awaitWaiting(controller, 3);
+        assertThrows(OverloadedException.class, () -> controller.admit("e3", EXPENSIVE));
+        waiters.add(admitLater(controller, "c", CHEAP, new CopyOnWriteArrayList<>()));
+        awaitWaiting(controller, 4);
+        running.close();
+        for (CompletableFuture<Void> waiter : waiters) {
+            waiter.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void cheapRequestsGoFirst() throws Exception {
+        AdmissionController controller = new AdmissionController(1, 10, 10, 5000);
+        AdmissionController.Ticket running = controller.admit("a", EXPENSIVE);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> expensive = admitLater(controller, "compile", EXPENSIVE, order);
+        awaitWaiting(controller, 1);
+        CompletableFuture<Void> cheap = admitLater(controller, "tokenize", CHEAP, order);
+        awaitWaiting(controller, 2);
+        running.close();
+        expensive.get(5, TimeUnit.SECONDS);
+        cheap.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("tokenize", "compile"), order);
+    }
+
+    private CompletableFuture<Void> admitLater(AdmissionController controller, String client,
+                                               AdmissionController.Priority priority, List<String> order) {
+        return CompletableFuture.runAsync(() -> {
+            try (AdmissionController.Ticket ignored = controller.admit(client, priority)) {
+                order.add(client);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private void awaitWaiting(AdmissionController controller, int count) throws InterruptedException {
+        while (controller.getWaiting() < count) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchProcessorTest extends CatscriptTestBase {
+
+    @Test
+    void everyJobGetsOneResult() throws Exception {
+        StringBuilder jobs = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            String mode = i % 2 == 0 ? "evaluate" : "compile";
+            jobs.append("{\"id\": \"job").append(i).append("\", \"mode\": \"").append(mode)
+                    .append("\", \"src\": \"print(").append(i).append(" * 2)\"}\n");
+        }
+        List<String> results = new ArrayList<>();
+        int count = new BatchProcessor(2, 2, 4).process(new BufferedReader(new StringReader(jobs.toString())), results::add);
+        assertEquals(50, count);
+        assertEquals(50, results.size());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(results.contains("{\"id\":\"job" + i + "\",\"ok\":true,\"output\":\"" + (i * 2) + "\\n\"}"));
+        }
+    }
+
+    @Test
+    void errorsAreReportedPerJob() throws Exception {
+        String jobs = "{\"id\": 1, \"src\": \"print(1 + true)\"}\n" +
+                "\n" +
+                "not json\n" +
+                "{\"id\": \"ok\", \"src\": \"var x = \\\"a b\\\" print(x)\"}\n";
+        List<String> results = new ArrayList<>();
+        new BatchProcessor(1, 1, 2).process(new BufferedReader(new StringReader(jobs)), results::add);
+        assertEquals(3, results.size());
+        assertTrue(results.stream().anyMatch(r -> r.startsWith("{\"id\":1,\"ok\":false,\"error\":\"Parse Errors")));
+        assertTrue(results.stream().anyMatch(r -> r.startsWith("{\"id\":2,\"ok\":false")));
+        assertTrue(results.contains("{\"id\":\"ok\",\"ok\":true,\"output\":\"a b\\n\"}"));
+    }
+
+    @Test
+    void runawayJobsAreStoppedByTheTimeout() throws Exception {
+        String list = "[0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19]";
+        String loops = "for (a in " + list + ") { for (b in " + list + ") { for (c in " + list + ") { " +
+                "for (d in " + list + ") { for (e in " + list + ") { var x = e } } } } }";
+        String jobs = "{\"id\": \"runaway\", \"src\": \"" + loops + "\"}\n" +
+                "{\"id\": \"next\", \"mode\": \"compile\", \"src\": \"print(1)\"}\n";
+        List<String> results = new ArrayList<>();
+        new BatchProcessor(1, 1, 2, 200).process(new BufferedReader(new StringReader(jobs)), results::add);
+        assertEquals(2, results.size());
+        assertTrue(results.stream().anyMatch(r -> r.startsWith("{\"id\":\"runaway\",\"ok\":false,\"error\":")));
+        assertTrue(results.contains("{\"id\":\"next\",\"ok\":true,\"output\":\"1\\n\"}"));
+    }
+
+    @Test
+    void abandonedBatchesStopReadingJobs() throws Exception {
+        StringBuilder jobs = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            jobs.append("{\"src\": \"print(").append(i).append(")\"}\n");
+        }
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        int count = new BatchProcessor(1, 1, 1).process(new BufferedReader(new StringReader(jobs.toString())),
+                results::add, () -> !results.isEmpty());
+        // one job may already have been read while the first result was on its way
+        assertTrue(count <= 2);
+        assertEquals(count, results.size());
+    }
+
+    @Test
+    void jsonObjectsRoundTrip() {
+        Map<String, Object> object = Json.parseObject("{\"a\": \"x\\\"y\\u0041\", \"b\": 12, \"c\": false, \"d\": null}");
+        assertEquals("x\"yA", object.get("a"));
+        assertEquals(12L, object.get("b"));
+        assertEquals(false, object.get("c"));
+        assertNull(object.get("d"));
+        assertEquals("\"x\\\"y\\n\"", Json.quote("x\"y\n"));
+        Map<String, Object> nested = Json.parseObject("{\"a\": {\"b\": 1.5, \"c\": {}}}");
+        assertEquals(1.5, ((Map<?, ?>) nested.get("a")).get("b"));
+        assertEquals(Map.of(), ((Map<?, ?>) nested.get("a")).get("c"));
+    }
+}
@@ -0,0 +1,28 @@
+package edu.montana.csci.csci468.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DetachableWriterTest {
+
+    @Test
+    void writesGoThroughUntilDetached() throws IOException {
+        StringWriter out = new StringWriter();
+        DetachableWriter writer = new DetachableWriter(out);
+        writer.write("before\n");
+        writer.flush();
+
+        Writer underlying = writer.detach();
+        assertSame(out, underlying);
+        assertThrows(IOException.class, () -> writer.write("after\n"));
+        assertThrows(IOException.class, writer::flush);
+
+        underlying.write("trailer\n");
+        assertEquals("before\ntrailer\n", out.toString());
+    }
+}
@@ -0,0 +1,95 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompiledProgram;
+import edu.montana.csci.csci468.eval.BudgetExceededException;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.eval.ExecutionContext;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlightRecorderEventsTest extends CatscriptTestBase {
+
+    @Test
+    void compilerPhasesAndRunsAreRecorded(@TempDir Path dir) throws Exception {
+        List<RecordedEvent> events;
+        String className;
+        try (Recording recording = startRecording()) {
+            CatScriptProgram program = new CatScriptParser().parse("var x = 2\nprint(x)\nprint(\"four\")");
+            program.verify();
+            program.execute();
+            CompiledProgram compiled = new ByteCodeGenerator(program).compileProgram();
+            className = compiled.getProgramClass().getName();
+            compiled.execute(new ExecutionContext());
+            events = stop(recording, dir);
+        }
+
+        assertTrue(named(events, "catscript.Tokenize").stream().anyMatch(event -> event.getInt("tokens") == 13));
+        assertTrue(named(events, "catscript.Parse").stream().anyMatch(event -> event.getInt("statements") == 3));
+        assertTrue(named(events, "catscript.Verify").stream().anyMatch(event -> event.getInt("nodes") > 0));
+        RecordedEvent definition = named(events, "catscript.ClassDefinition").stream()
+                .filter(event -> className.equals(event.getString("className"))).findFirst().orElseThrow();
+        assertTrue(definition.getInt("bytecodeSize") > 0);
+        assertTrue(named(events, "catscript.CodeGeneration").stream()
+                .anyMatch(event -> event.getInt("bytecodeSize") == definition.getInt("bytecodeSize")));
+        for (String backend : List.of("interpreter", "bytecode")) {
+            RecordedEvent run = named(events, "catscript.ScriptExecution").stream()
+                    .filter(event -> backend.equals(event.getString("backend")) && event.getInt("statements") == 3)
+                    .findFirst().orElseThrow();
+            assertEquals(7, run.getLong("outputCharacters"));
+            assertFalse(run.getBoolean("aborted"));
+        }
+    }
+
+    @Test
+    void abortsAreRecorded(@TempDir Path dir) throws Exception {
+        List<RecordedEvent> events;
+        try (Recording recording = startRecording()) {
+            CatScriptProgram program = new CatScriptParser().parse("for (i in [1, 2, 3, 4]) { print(i) }");
+            program.verify();
+            program.setBudget(new ExecutionBudget(2, Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE));
+            assertThrows(BudgetExceededException.class, program::execute);
+            events = stop(recording, dir);
+        }
+
+        RecordedEvent abort = named(events, "catscript.ScriptAbort").stream()
+                .filter(event -> "interpreter".equals(event.getString("backend"))).findFirst().orElseThrow();
+        assertEquals("steps", abort.getString("reason"));
+        assertEquals(BudgetExceededException.class.getName(), abort.getString("exception"));
+        assertTrue(named(events, "catscript.ScriptExecution").stream()
+                .anyMatch(event -> event.getBoolean("aborted") && event.getLong("steps") == 3));
+    }
+
+    private Recording startRecording() {
+        Recording recording = new Recording();
+        for (String name : List.of("Tokenize", "Parse", "Verify", "CodeGeneration", "ClassDefinition",
+                "ScriptExecution", "ScriptAbort")) {
+            recording.enable("catscript." + name);
+        }
+        recording.start();
+        return recording;
+    }
+
+    private List<RecordedEvent> stop(Recording recording, Path dir) throws Exception {
+        recording.stop();
+        Path file = dir.resolve("events.jfr");
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+}
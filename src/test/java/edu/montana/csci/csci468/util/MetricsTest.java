@@ -0,0 +1,57 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest extends CatscriptTestBase {
+
+    @Test
+    void compilerPhasesAreTimed() {
+        long tokenized = Metrics.getDuration(Metrics.Phase.TOKENIZE).getCount();
+        long parsed = Metrics.getDuration(Metrics.Phase.PARSE).getCount();
+        long verified = Metrics.getDuration(Metrics.Phase.VERIFY).getCount();
+        long generated = Metrics.getDuration(Metrics.Phase.CODEGEN).getCount();
+        long loaded = Metrics.getDuration(Metrics.Phase.CLASS_LOAD).getCount();
+        assertEquals("3\n", compile("print(1 + 2)"));
+        assertTrue(Metrics.getDuration(Metrics.Phase.TOKENIZE).getCount() > tokenized);
+        assertTrue(Metrics.getDuration(Metrics.Phase.PARSE).getCount() > parsed);
+        assertTrue(Metrics.getDuration(Metrics.Phase.VERIFY).getCount() > verified);
+        assertTrue(Metrics.getDuration(Metrics.Phase.CODEGEN).getCount() > generated);
+        assertTrue(Metrics.getDuration(Metrics.Phase.CLASS_LOAD).getCount() > loaded);
+    }
+
+    @Test
+    void failedPhasesAreCounted() {
+        long failures = Metrics.getErrorCount(Metrics.Phase.VERIFY);
+        assertFalse(getErrors("print(1 + true)").isEmpty());
+        assertEquals(failures + 1, Metrics.getErrorCount(Metrics.Phase.VERIFY));
+    }
+
+    @Test
+    void metricsRenderAsPrometheusText() {
+        executeProgram("print(1)");
+        String text = Metrics.renderPrometheus();
+        assertTrue(text.contains("# TYPE catscript_phase_duration_seconds histogram"));
+        assertTrue(text.contains("catscript_phase_duration_seconds_bucket{phase=\"parse\",le=\"+Inf\"}"));
+        assertTrue(text.contains("catscript_phase_errors_total{phase=\"verify\"}"));
+        assertTrue(text.contains("catscript_tokens_count "));
+        assertTrue(text.contains("catscript_parse_nodes_sum "));
+    }
+
+    @Test
+    void histogramBucketsAreCumulative() {
+        Histogram histogram = new Histogram(1, 10);
+        histogram.observe(0.5);
+        histogram.observe(5);
+        histogram.observe(50);
+        StringBuilder out = new StringBuilder();
+        histogram.render(out, "h", "");
+        assertEquals("h_bucket{le=\"1\"} 1\n" +
+                "h_bucket{le=\"10\"} 2\n" +
+                "h_bucket{le=\"+Inf\"} 3\n" +
+                "h_sum 55.5\n" +
+                "h_count 3\n", out.toString());
+    }
+}
@@ -0,0 +1,73 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.ParseElement;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseTreeRenderingTest extends CatscriptTestBase {
+
+    @Test
+    void treesRenderAsNestedLists() {
+        assertEquals("<ul><li>CatScriptProgram<ul><li>ComparisonExpression[&lt;]<ul>" +
+                        "<li>1</li><li>2</li>" +
+                        "</ul></li></ul></li></ul>",
+                HTMLParseTreeRenderer.render(new CatScriptParser().parse("1 < 2")));
+    }
+
+    @Test
+    void deepAndLargeTreesAreCollapsed() {
+        ParseElement program = new CatScriptParser().parse("print(1 + 2)\nprint(3)\nprint(4)");
+        StringBuilder shallow = new StringBuilder();
+        HTMLParseTreeRenderer.render(program, shallow, 2, Integer.MAX_VALUE);
+        assertTrue(shallow.toString().contains("<li>PrintStatement<ul><li class=\"collapsed\">&hellip; 3 nodes not shown</li></ul></li>"));
+
+        StringBuilder small = new StringBuilder();
+        HTMLParseTreeRenderer.render(program, small, Integer.MAX_VALUE, 3);
+        assertTrue(small.toString().contains("<li class=\"collapsed\">&hellip; 4 nodes not shown</li>"));
+    }
+
+    @Test
+    void collapsedCountsOfVeryDeepTreesAreComputed() {
+        int terms = 100_000;
+        StringBuilder src = new StringBuilder("1");
+        for (int i = 1; i < terms; i++) {
+            src.append(" + 1");
+        }
+        ParseElement program = new CatScriptParser().parse(src.toString());
+        StringBuilder out = new StringBuilder();
+        HTMLParseTreeRenderer.render(program, out, 2, Integer.MAX_VALUE);
+        // every term and every + below the top-level expression
+        assertTrue(out.toString().contains("&hellip; " + (2 * terms - 2) + " nodes not shown"));
+    }
+
+    @Test
+    void renderedTreesAreCachedBySource() {
+        ParseTreeCache cache = new ParseTreeCache(2, 10_000, 64, 10_000);
+        AtomicInteger parses = new AtomicInteger();
+        Supplier<ParseElement> parse = () -> {
+            parses.incrementAndGet();
+            return new CatScriptParser().parse("print(1)");
+        };
+        StringBuilder first = new StringBuilder();
+        StringBuilder second = new StringBuilder();
+        assertFalse(cache.render("print(1)", parse, first));
+        assertTrue(cache.render("print(1)", parse, second));
+        assertEquals(1, parses.get());
+        assertEquals(first.toString(), second.toString());
+    }
+
+    @Test
+    void largeRenderingsAreStreamedButNotCached() {
+        ParseTreeCache cache = new ParseTreeCache(2, 20, 64, 10_000);
+        StringBuilder out = new StringBuilder();
+        assertFalse(cache.render("print(1)", () -> new CatScriptParser().parse("print(1)"), out));
+        assertEquals(HTMLParseTreeRenderer.render(new CatScriptParser().parse("print(1)")), out.toString());
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,46 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgramGeneratorTest extends CatscriptTestBase {
+
+    @Test
+    void sameSeedSameProgram() {
+        String program = new ProgramGenerator(42).generate();
+        assertEquals(program, new ProgramGenerator(42).generate());
+        assertNotEquals(program, new ProgramGenerator(43).generate());
+    }
+
+    @Test
+    void generatedProgramsAreWellTyped() {
+        for (long seed = 0; seed < 50; seed++) {
+            String source = new ProgramGenerator(seed).setMaxDepth(4).setStatementMix(4, 4, 4).generate();
+            assertEquals(0, getErrors(source).size(), source);
+        }
+    }
+
+    @Test
+    void interpretedAndCompiledOutputsMatch() {
+        for (long seed = 0; seed < 20; seed++) {
+            String source = new ProgramGenerator(seed).generate();
+            assertEquals(executeProgram(source), compile(source), source);
+        }
+    }
+
+    @Test
+    void settingsShapeTheProgram() {
+        String flat = new ProgramGenerator(7).setFunctions(12).setStatements(200).setStatementMix(0, 0, 0).generate();
+        assertTrue(flat.contains("function f11("));
+        assertFalse(flat.contains("function f12("));
+        assertFalse(flat.contains("\nfor ("));
+        assertFalse(flat.contains("\nif ("));
+        assertEquals(0, getErrors(flat).size());
+
+        String small = new ProgramGenerator(7).setFunctions(0).setStatements(10).generate();
+        String large = new ProgramGenerator(7).setFunctions(0).setStatements(1000).generate();
+        assertTrue(large.length() > small.length() * 20);
+    }
+}
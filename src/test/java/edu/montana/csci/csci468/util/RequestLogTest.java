@@ -0,0 +1,74 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestLogTest extends CatscriptTestBase {
+
+    @Test
+    void requestsAreWrittenAsJsonLines() throws Exception {
+        StringWriter out = new StringWriter();
+        RequestLog log = new RequestLog(out, 16, 1.0, 5);
+        log.request("GET", "/evaluate", 200, 2_500_000, () -> Map.of("src", "print(1234567)"));
+        awaitWritten(log, 1);
+        assertEquals("{\"ts\":", out.toString().substring(0, 6));
+        assertTrue(out.toString().contains("\"event\":\"request\",\"method\":\"GET\",\"path\":\"/evaluate\"," +
+                "\"status\":200,\"durationMs\":2.5,\"params\":{\"src\":\"print...(14 chars)\"}}\n"));
+    }
+
+    @Test
+    void successfulRequestsAreSampledButErrorsAreNot() throws Exception {
+        StringWriter out = new StringWriter();
+        RequestLog log = new RequestLog(out, 16, 0.0, 100);
+        log.request("GET", "/parse", 200, 1, () -> fail("params of unsampled requests are never collected"));
+        log.request("GET", "/parse", 500, 1, Map::of);
+        log.error("GET", "/parse", new IllegalStateException("boom"));
+        awaitWritten(log, 2);
+        assertFalse(out.toString().contains("\"status\":200"));
+        assertTrue(out.toString().contains("\"status\":500"));
+        assertTrue(out.toString().contains("\"event\":\"error\",\"method\":\"GET\",\"path\":\"/parse\",\"message\":\"boom\""));
+    }
+
+    @Test
+    void aFullBufferDropsInsteadOfBlocking() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        StringWriter out = new StringWriter();
+        Writer slow = new Writer() {
+            public void write(char[] buffer, int offset, int length) {
+                try {
+                    stalled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                out.write(buffer, offset, length);
+            }
+            public void flush() {}
+            public void close() {}
+        };
+        RequestLog log = new RequestLog(slow, 2, 1.0, 100);
+        for (int i = 0; i < 10; i++) {
+            log.request("GET", "/" + i, 200, 1, Map::of);
+        }
+        assertTrue(log.getDropped() >= 7);
+        stalled.countDown();
+        awaitWritten(log, 10 - log.getDropped());
+        log.request("GET", "/after", 200, 1, Map::of);
+        awaitWritten(log, 11 - log.getDropped());
+        assertTrue(out.toString().contains("{\"event\":\"dropped\",\"count\":"));
+    }
+
+    private void awaitWritten(RequestLog log, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (log.getWritten() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, log.getWritten());
+    }
+}
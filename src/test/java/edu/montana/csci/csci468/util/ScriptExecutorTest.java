@@ -0,0 +1,89 @@
+package edu.montana.csci.csci468.util;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScriptExecutorTest extends CatscriptTestBase {
+
+    @Test
+    void jobsRunAndReturnTheirResult() throws Exception {
+        ScriptExecutor executor = new ScriptExecutor(2, 2, true);
+        assertEquals("2\n", executor.run(() -> executeProgram("print(1 + 1)").toString()));
+        assertEquals(0, executor.getAdmitted());
+    }
+
+    @Test
+    void jobExceptionsAreRethrown() {
+        ScriptExecutor executor = new ScriptExecutor(1, 0, false);
+        assertThrows(IllegalStateException.class, () -> executor.run(() -> {
+            throw new IllegalStateException("boom");
+        }));
+    }
+
+    @Test
+    void jobsBeyondTheQueueAreRejected() throws Exception {
+        ScriptExecutor executor = new ScriptExecutor(1, 1, false);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> runQuietly(executor, release));
+        CompletableFuture<Object> second = CompletableFuture.supplyAsync(() -> runQuietly(executor, release));
+        while (executor.getAdmitted() < 2) {
+            Thread.sleep(1);
+        }
+        assertThrows(RejectedExecutionException.class, () -> executor.run(() -> "too many"));
+        release.countDown();
+        assertEquals("done", first.get(5, TimeUnit.SECONDS));
+        assertEquals("done", second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void jobsPastTheTimeoutAreCancelled() throws Exception {
+        ScriptExecutor executor = new ScriptExecutor(1, 0, false, 50);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        assertThrows(TimeoutException.class, () -> executor.run(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        }));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getAdmitted());
+        // the slot is free again
+        assertEquals("next", executor.run(() -> "next"));
+    }
+
+    @Test
+    void cpuBoundScriptsStopWhenTheyTimeOut() throws Exception {
+        ScriptExecutor executor = new ScriptExecutor(1, 1, false, 200);
+        String list = "[0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19]";
+        assertThrows(TimeoutException.class, () -> executor.run(() -> executeProgram(
+                "var total = 0\n" +
+                "for (a in " + list + ") { for (b in " + list + ") { for (c in " + list + ") {\n" +
+                "  for (d in " + list + ") { for (e in " + list + ") { total = total + 1 } }\n" +
+                "} } }\n" +
+                "print(total)")));
+        // the script notices the interrupt at its next budget check and gives its slot back
+        assertEquals("next", executor.run(() -> "next"));
+        assertEquals(0, executor.getAdmitted());
+    }
+
+    private Object runQuietly(ScriptExecutor executor, CountDownLatch release) {
+        try {
+            return executor.run(() -> {
+                release.await();
+                return "done";
+            });
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}